@@ -0,0 +1,31 @@
+package cs3500.klondike.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks named on the command line (all of them by default) with the usual
+ * JMH options, and always with the GC profiler, so every result reports its allocation
+ * rate next to its throughput.
+ */
+public final class Benchmarks {
+  private Benchmarks() {
+    // launcher only
+  }
+
+  /**
+   * run the benchmarks.
+   * @param args JMH command line options, e.g. a benchmark name pattern or {@code -p}
+   * @throws Exception if the options are invalid or a benchmark fails
+   */
+  public static void main(String[] args) throws Exception {
+    Options options = new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .addProfiler(GCProfiler.class)
+            .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,92 @@
+package cs3500.klondike.bench;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import cs3500.klondike.model.hw02.BasicKlondike;
+import cs3500.klondike.model.hw02.Card;
+import cs3500.klondike.model.hw02.KlondikeCard;
+import cs3500.klondike.model.hw02.Rank;
+import cs3500.klondike.sim.GreedyAgent;
+
+/**
+ * Reproducible decks and game positions for the benchmarks.
+ */
+public final class Games {
+  private Games() {
+    // static helpers only
+  }
+
+  /**
+   * a deck of every suit from Ace up to the given rank, in suit then rank order.
+   * @param runLength the number of cards of each suit, from 1 to 13
+   * @return a new deck
+   */
+  public static List<Card> deck(int runLength) {
+    List<Card> deck = new ArrayList<>();
+    for (KlondikeCard.Suits suit : KlondikeCard.Suits.values()) {
+      for (int value = 1; value <= runLength; value++) {
+        deck.add(KlondikeCard.of(suit, Rank.fromValue(value)));
+      }
+    }
+    return deck;
+  }
+
+  /**
+   * a deck of every suit from Ace up to the given rank, in a seeded random order.
+   * @param runLength the number of cards of each suit, from 1 to 13
+   * @param seed      the seed of the order
+   * @return a new deck
+   */
+  public static List<Card> shuffled(int runLength, long seed) {
+    List<Card> deck = deck(runLength);
+    Collections.shuffle(deck, new Random(seed));
+    return deck;
+  }
+
+  /**
+   * a game of the standard deck, dealt from a seeded order and played for a while by a
+   * {@link GreedyAgent}, so that it has cards on the foundations and turned-up cascades.
+   * @param numPiles the number of piles
+   * @param numDraw  the number of draw cards
+   * @param seed     the seed of the deal
+   * @return the game
+   */
+  public static BasicKlondike midGame(int numPiles, int numDraw, long seed) {
+    BasicKlondike model = new BasicKlondike();
+    model.startGame(shuffled(13, seed), false, numPiles, numDraw);
+    return playFor(model, 40, seed);
+  }
+
+  /**
+   * a game of the given number of standard decks, dealt with a deal number and played for
+   * a while by a {@link GreedyAgent}, 40 moves per deck.
+   * @param numDecks the number of decks
+   * @param numPiles the number of piles
+   * @param numDraw  the number of draw cards
+   * @param seed     the deal number
+   * @return the game
+   */
+  public static BasicKlondike midGame(int numDecks, int numPiles, int numDraw, long seed) {
+    BasicKlondike model = new BasicKlondike(numDecks);
+    model.startGame(model.getDeck(), seed, numPiles, numDraw);
+    return playFor(model, 40 * numDecks, seed);
+  }
+
+  private static BasicKlondike playFor(BasicKlondike model, int maxMoves, long seed) {
+    GreedyAgent agent = new GreedyAgent();
+    agent.newGame(model, seed);
+    int[] moves = new int[1024];
+    for (int i = 0; i < maxMoves && !model.isGameOver(); i++) {
+      int numMoves = model.generateMoves(moves);
+      int choice = agent.chooseMove(model, moves, numMoves);
+      if (choice < 0) {
+        break;
+      }
+      model.apply(moves[choice]);
+    }
+    return model;
+  }
+}
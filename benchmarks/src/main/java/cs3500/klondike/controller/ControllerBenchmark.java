@@ -0,0 +1,90 @@
+package cs3500.klondike.controller;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cs3500.klondike.model.hw02.BasicKlondike;
+import cs3500.klondike.model.hw02.Card;
+import cs3500.klondike.model.hw02.Moves;
+
+/**
+ * Playing a recorded script of legal moves through the textual controller, from reading
+ * the commands to writing the game after each one, or only at the end when quiet. The
+ * score is per command.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ControllerBenchmark {
+  private static final int COMMANDS = 10_000;
+
+  @Param({"false", "true"})
+  boolean quiet;
+
+  private List<Card> deck;
+  private String script;
+  private StringBuilder output;
+
+  @Setup
+  public void setUp() {
+    BasicKlondike model = new BasicKlondike();
+    deck = model.getDeck(42);
+    model.startGame(deck, false, 7, 3);
+    // a random walk of legal moves, which never ends the game this early
+    SplittableRandom random = new SplittableRandom(42);
+    StringBuilder commands = new StringBuilder();
+    int[] moves = new int[1024];
+    for (int i = 0; i < COMMANDS; i++) {
+      int move = moves[random.nextInt(model.generateMoves(moves))];
+      model.apply(move);
+      commands.append(command(move)).append('\n');
+    }
+    script = commands.append("q\n").toString();
+    output = new StringBuilder();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(COMMANDS)
+  public StringBuilder playScript() {
+    output.setLength(0);
+    new KlondikeTextualController(new StringReader(script), output, quiet)
+            .playGame(new BasicKlondike(), deck, false, 7, 3);
+    return output;
+  }
+
+  // the controller command of an encoded move
+  private static String command(int move) {
+    int source = Moves.source(move) + 1;
+    int destination = Moves.destination(move) + 1;
+    switch (Moves.kind(move)) {
+      case Moves.PILE:
+        return "mpp " + source + " " + Moves.count(move) + " " + destination;
+      case Moves.DRAW:
+        return "md " + destination;
+      case Moves.PILE_TO_FOUNDATION:
+        return "mpf " + source + " " + destination;
+      case Moves.DRAW_TO_FOUNDATION:
+        return "mdf " + destination;
+      default:
+        return "dd";
+    }
+  }
+}
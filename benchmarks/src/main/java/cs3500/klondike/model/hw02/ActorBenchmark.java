@@ -0,0 +1,97 @@
+package cs3500.klondike.model.hw02;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Four threads sending bursts of commands to shared games, either through a
+ * {@link KlondikeActor} per game on a pool of two threads, waiting only for the last
+ * command of each burst, or by locking the game for each command. A command discards the
+ * draw card, takes it back and reads the score. With one game, every thread contends for
+ * it. The score is per command.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ActorBenchmark {
+  private static final int BURST = 16;
+  private static final Function<KlondikeModel, Integer> COMMAND = model -> {
+    BasicKlondike game = (BasicKlondike) model;
+    game.discardDraw();
+    game.undo();
+    return game.getScore();
+  };
+
+  @Param({"1", "64"})
+  int numGames;
+
+  private ForkJoinPool pool;
+  private BasicKlondike[] games;
+  private KlondikeActor[] actors;
+
+  @State(Scope.Thread)
+  public static class Sender {
+    private final SplittableRandom random = new SplittableRandom();
+  }
+
+  @Setup
+  public void setUp() {
+    pool = new ForkJoinPool(2, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+    games = new BasicKlondike[numGames];
+    actors = new KlondikeActor[numGames];
+    for (int i = 0; i < numGames; i++) {
+      games[i] = new BasicKlondike();
+      games[i].startGame(games[i].getDeck(), i, 7, 3);
+      actors[i] = new KlondikeActor(games[i], pool);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BURST)
+  public int actor(Sender sender) {
+    KlondikeActor actor = actors[sender.random.nextInt(numGames)];
+    for (int i = 1; i < BURST; i++) {
+      actor.submit(COMMAND);
+    }
+    return actor.submit(COMMAND).join();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BURST)
+  public int locked(Sender sender) {
+    BasicKlondike game = games[sender.random.nextInt(numGames)];
+    int score = 0;
+    for (int i = 0; i < BURST; i++) {
+      synchronized (game) {
+        score = COMMAND.apply(game);
+      }
+    }
+    return score;
+  }
+}
@@ -0,0 +1,59 @@
+package cs3500.klondike.model.hw02;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cs3500.klondike.bench.Games;
+
+/**
+ * Saving a game part way through into a reused buffer, and loading it back.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecBenchmark {
+  @Param({"4", "7"})
+  int numPiles;
+
+  @Param({"1", "3"})
+  int numDraw;
+
+  private BasicKlondike game;
+  private ByteBuffer buffer;
+
+  @Setup
+  public void setUp() {
+    game = Games.midGame(numPiles, numDraw, 42);
+    buffer = ByteBuffer.allocate(KlondikeCodec.encodedSize(game));
+  }
+
+  @Benchmark
+  public ByteBuffer write() {
+    buffer.clear();
+    KlondikeCodec.write(game, buffer);
+    return buffer;
+  }
+
+  @Benchmark
+  public BasicKlondike read() {
+    buffer.clear();
+    KlondikeCodec.write(game, buffer);
+    buffer.flip();
+    return KlondikeCodec.read(buffer);
+  }
+}
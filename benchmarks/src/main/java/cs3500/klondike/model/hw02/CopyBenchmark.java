@@ -0,0 +1,57 @@
+package cs3500.klondike.model.hw02;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cs3500.klondike.bench.Games;
+
+/**
+ * Branching a game part way through, as a search or rollout does before trying a move:
+ * the copy alone, and the copy followed by a discard, which makes the copy take its own
+ * draw cards.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CopyBenchmark {
+  @Param({"4", "7"})
+  int numPiles;
+
+  @Param({"1", "3"})
+  int numDraw;
+
+  private BasicKlondike game;
+
+  @Setup
+  public void setUp() {
+    game = Games.midGame(numPiles, numDraw, 42);
+  }
+
+  @Benchmark
+  public BasicKlondike copy() {
+    return game.copy();
+  }
+
+  @Benchmark
+  public BasicKlondike copyAndDiscard() {
+    BasicKlondike copy = game.copy();
+    if (!copy.getDrawCards().isEmpty()) {
+      copy.discardDraw();
+    }
+    return copy;
+  }
+}
@@ -0,0 +1,44 @@
+package cs3500.klondike.model.hw02;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cs3500.klondike.bench.Games;
+
+/**
+ * Checking that a deck is made of equal-length runs from the Ace, as every new game does.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DeckBenchmark {
+  @Param({"7", "13"})
+  int runLength;
+
+  private List<Card> deck;
+
+  @Setup
+  public void setUp() {
+    deck = Games.shuffled(runLength, 42);
+  }
+
+  @Benchmark
+  public boolean isValidDeck() {
+    return BasicKlondike.isValidDeck(deck);
+  }
+}
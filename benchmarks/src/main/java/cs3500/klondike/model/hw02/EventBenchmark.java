@@ -0,0 +1,100 @@
+package cs3500.klondike.model.hw02;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Playing 100 games of 200 random legal moves each, dealt by number, with and without
+ * publishing every change to a {@link KlondikeEvents} stream, and reading the events of
+ * a game back. The score is per move.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventBenchmark {
+  private static final int GAMES = 100;
+  private static final int MOVES = 200;
+
+  @Param({"false", "true"})
+  boolean publish;
+
+  // the moves of each game, in order
+  private int[][] moves;
+  private KlondikeEvents events;
+  private KlondikeEvents.Subscription subscription;
+  private final long[] polled = new long[1024];
+
+  @Setup
+  public void setUp() {
+    SplittableRandom random = new SplittableRandom(42);
+    moves = new int[GAMES][MOVES];
+    int[] legal = new int[1024];
+    for (int game = 0; game < GAMES; game++) {
+      BasicKlondike model = new BasicKlondike();
+      model.startGame(model.getDeck(), game, 7, 3);
+      for (int i = 0; i < MOVES; i++) {
+        int move = legal[random.nextInt(model.generateMoves(legal))];
+        model.apply(move);
+        moves[game][i] = move;
+      }
+    }
+    events = new KlondikeEvents(1 << 12);
+    subscription = events.subscribe();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(GAMES * MOVES)
+  public long play() {
+    long hash = 0;
+    for (int game = 0; game < GAMES; game++) {
+      BasicKlondike model = new BasicKlondike();
+      if (publish) {
+        model.publishTo(events);
+      }
+      model.startGame(model.getDeck(), game, 7, 3);
+      for (int move : moves[game]) {
+        model.apply(move);
+      }
+      hash ^= model.positionHash();
+    }
+    return hash;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(GAMES * MOVES)
+  public long playAndRead() {
+    long sum = 0;
+    for (int game = 0; game < GAMES; game++) {
+      BasicKlondike model = new BasicKlondike();
+      if (publish) {
+        model.publishTo(events);
+      }
+      model.startGame(model.getDeck(), game, 7, 3);
+      for (int move : moves[game]) {
+        model.apply(move);
+      }
+      for (int n = subscription.poll(polled); n != 0; n = subscription.poll(polled)) {
+        for (int i = 0; i < n; i++) {
+          sum += polled[i];
+        }
+      }
+    }
+    return sum;
+  }
+}
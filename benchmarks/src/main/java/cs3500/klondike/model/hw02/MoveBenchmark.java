@@ -0,0 +1,166 @@
+package cs3500.klondike.model.hw02;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cs3500.klondike.bench.Games;
+
+/**
+ * The move methods, in positions that can be played over and over.
+ *
+ * <p>The deal puts the nine of hearts on pile 0, and the eight of spades over a face-down
+ * nine of diamonds on pile 1. Moving the eight onto the nine of hearts turns up the nine
+ * of diamonds, after which the eight can go back and forth between the two nines
+ * forever. Discarding only turns the draw cards around, so it can be repeated too. A draw
+ * card cannot be put back by another move, so {@link #moveDraw} deals a fresh game,
+ * outside the timed part, before every call; its allocation rate still counts the fresh
+ * deal. {@link #moveDrawAndUndo} takes the card back with {@link BasicKlondike#undo()}
+ * instead. {@link #moveRun} moves a run of twelve cards back and forth between two kings.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveBenchmark {
+  @Param({"4", "7"})
+  int numPiles;
+
+  @Param({"1", "3"})
+  int numDraw;
+
+  private BasicKlondike game;
+  private BasicKlondike drawGame;
+  private BasicKlondike runGame;
+
+  @Setup
+  public void setUp() {
+    game = new BasicKlondike();
+    game.startGame(deal(numPiles), false, numPiles, numDraw);
+    game.movePile(1, 1, 0);
+    drawGame = new BasicKlondike();
+    drawGame.startGame(drawDeal(numPiles), false, numPiles, numDraw);
+    runGame = runPosition(numDraw);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(2)
+  public void movePile() {
+    game.movePile(0, 1, 1);
+    game.movePile(1, 1, 0);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(2)
+  public void moveRun() {
+    runGame.movePile(0, 12, 1);
+    runGame.movePile(1, 12, 0);
+  }
+
+  @Benchmark
+  public void discardDraw() {
+    game.discardDraw();
+  }
+
+  @Benchmark
+  public void moveDraw(FreshGame fresh) {
+    fresh.game.moveDraw(0);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(2)
+  public void moveDrawAndUndo() {
+    drawGame.moveDraw(0);
+    drawGame.undo();
+  }
+
+  /**
+   * A new game before every call, whose first draw card fits on pile 0.
+   */
+  @State(Scope.Thread)
+  public static class FreshGame {
+    private BasicKlondike game;
+    private List<Card> deck;
+    private int numPiles;
+    private int numDraw;
+
+    @Setup(Level.Trial)
+    public void setUpDeck(MoveBenchmark benchmark) {
+      numPiles = benchmark.numPiles;
+      numDraw = benchmark.numDraw;
+      deck = drawDeal(numPiles);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpGame() {
+      game = new BasicKlondike();
+      game.startGame(deck, false, numPiles, numDraw);
+    }
+  }
+
+  // a position that cannot be dealt: pile 0 holds the king of spades down to the ace of
+  // spades in alternating colors, and pile 1 the king of clubs, so the twelve cards from the
+  // queen down can go back and forth between the two kings; the other cards are the stock
+  private static BasicKlondike runPosition(int numDraw) {
+    List<Card> run = new CardPile();
+    for (int value = 13; value >= 1; value--) {
+      run.add(KlondikeCard.of(value % 2 == 1 ? KlondikeCard.Suits.SPADES
+              : KlondikeCard.Suits.HEARTS, Rank.fromValue(value)));
+    }
+    List<Card> king = new CardPile();
+    king.add(KlondikeCard.of(KlondikeCard.Suits.CLUBS, Rank.KING));
+    List<Card> stock = new CardPile();
+    for (Card card : Games.deck(13)) {
+      if (!run.contains(card) && !king.contains(card)) {
+        stock.add(card);
+      }
+    }
+    List<List<Card>> foundations = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      foundations.add(new CardPile());
+    }
+    return BasicKlondike.restore(new ArrayList<>(List.of(run, king)), new int[2], foundations,
+            new CardPile(), stock, numDraw);
+  }
+
+  // the standard deck with the nine of hearts dealt to pile 0, and the nine of diamonds
+  // then the eight of spades dealt to pile 1
+  private static List<Card> deal(int numPiles) {
+    List<Card> deck = Games.shuffled(13, 42);
+    place(deck, KlondikeCard.of(KlondikeCard.Suits.HEARTS, Rank.NINE), 0);
+    place(deck, KlondikeCard.of(KlondikeCard.Suits.DIAMONDS, Rank.NINE), 1);
+    place(deck, KlondikeCard.of(KlondikeCard.Suits.SPADES, Rank.EIGHT), numPiles);
+    return deck;
+  }
+
+  // the same deal, but with the eight of spades as the first draw card, which fits on the
+  // nine of hearts
+  private static List<Card> drawDeal(int numPiles) {
+    List<Card> deck = deal(numPiles);
+    place(deck, KlondikeCard.of(KlondikeCard.Suits.SPADES, Rank.EIGHT),
+            numPiles * (numPiles + 1) / 2);
+    return deck;
+  }
+
+  private static void place(List<Card> deck, Card card, int index) {
+    int from = deck.indexOf(card);
+    deck.set(from, deck.get(index));
+    deck.set(index, card);
+  }
+}
@@ -0,0 +1,84 @@
+package cs3500.klondike.model.hw02;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cs3500.klondike.bench.Games;
+
+/**
+ * Games of one or more standard decks, to show that a move costs the same however many
+ * decks are in play. Each variant is "decks x piles".
+ *
+ * <p>{@link #moveAndUndo} makes each legal move of a mid-game position in turn and takes
+ * it back, so it covers every kind of move the position allows. Dealing and validating a
+ * deck are expected to grow with the deck; they are measured per game.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MultiDeckBenchmark {
+  @Param({"1x7", "2x7", "4x7", "2x13", "4x13"})
+  String variant;
+
+  private int numDecks;
+  private int numPiles;
+  private BasicKlondike game;
+  private List<Card> deck;
+  private int[] moves;
+  private int numMoves;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    String[] sizes = variant.split("x");
+    numDecks = Integer.parseInt(sizes[0]);
+    numPiles = Integer.parseInt(sizes[1]);
+    game = Games.midGame(numDecks, numPiles, 3, 42);
+    deck = game.getDeck(42);
+    moves = new int[1024];
+    numMoves = game.generateMoves(moves);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(2)
+  public void moveAndUndo() {
+    game.apply(moves[next]);
+    game.undo();
+    if (++next == numMoves) {
+      next = 0;
+    }
+  }
+
+  @Benchmark
+  public void discardDraw() {
+    game.discardDraw();
+  }
+
+  @Benchmark
+  public int countLegalMoves() {
+    return game.countLegalMoves();
+  }
+
+  @Benchmark
+  public BasicKlondike startGame() {
+    BasicKlondike fresh = new BasicKlondike(numDecks);
+    fresh.startGame(deck, false, numPiles, 3);
+    return fresh;
+  }
+}
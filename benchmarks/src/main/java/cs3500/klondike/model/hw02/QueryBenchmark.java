@@ -0,0 +1,57 @@
+package cs3500.klondike.model.hw02;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cs3500.klondike.bench.Games;
+
+/**
+ * The questions a player or agent asks after every move, on a game part way through.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QueryBenchmark {
+  @Param({"4", "7"})
+  int numPiles;
+
+  @Param({"1", "3"})
+  int numDraw;
+
+  private BasicKlondike game;
+
+  @Setup
+  public void setUp() {
+    game = Games.midGame(numPiles, numDraw, 42);
+  }
+
+  @Benchmark
+  public boolean isGameOver() {
+    return game.isGameOver();
+  }
+
+  @Benchmark
+  public int getScore() {
+    return game.getScore();
+  }
+
+  @Benchmark
+  public List<Card> getDrawCards() {
+    return game.getDrawCards();
+  }
+}
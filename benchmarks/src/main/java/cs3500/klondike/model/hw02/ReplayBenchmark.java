@@ -0,0 +1,91 @@
+package cs3500.klondike.model.hw02;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Recording and replaying a log of 100 games of 200 random legal moves each, dealt by
+ * number. The score is per move; whether the log is trusted only matters to replaying.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReplayBenchmark {
+  private static final int GAMES = 100;
+  private static final int MOVES = 200;
+
+  @Param({"false", "true"})
+  boolean trusted;
+
+  private byte[] log;
+  // the moves of each game, in order
+  private int[][] moves;
+  private ByteArrayOutputStream bytes;
+
+  @Setup
+  public void setUp() throws IOException {
+    SplittableRandom random = new SplittableRandom(42);
+    moves = new int[GAMES][MOVES];
+    int[] legal = new int[1024];
+    for (int game = 0; game < GAMES; game++) {
+      BasicKlondike model = new BasicKlondike();
+      model.startGame(model.getDeck(), game, 7, 3);
+      for (int i = 0; i < MOVES; i++) {
+        int move = legal[random.nextInt(model.generateMoves(legal))];
+        model.apply(move);
+        moves[game][i] = move;
+      }
+    }
+    bytes = new ByteArrayOutputStream();
+    record();
+    log = bytes.toByteArray();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(GAMES * MOVES)
+  public ByteArrayOutputStream record() throws IOException {
+    bytes.reset();
+    for (int game = 0; game < GAMES; game++) {
+      BasicKlondike model = new BasicKlondike();
+      ReplayRecorder recorder = new ReplayRecorder(model, Channels.newChannel(bytes));
+      recorder.startGame(model.getDeck(), game, 7, 3);
+      for (int move : moves[game]) {
+        Moves.apply(recorder, move);
+      }
+      recorder.flush();
+    }
+    return bytes;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(GAMES * MOVES)
+  public long replay() throws IOException {
+    Replayer replayer = new Replayer(Channels.newChannel(new ByteArrayInputStream(log)),
+            trusted);
+    long hash = 0;
+    for (BasicKlondike model = replayer.next(); model != null; model = replayer.next()) {
+      hash ^= model.positionHash();
+    }
+    return hash;
+  }
+}
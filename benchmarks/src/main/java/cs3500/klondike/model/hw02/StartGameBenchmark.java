@@ -0,0 +1,57 @@
+package cs3500.klondike.model.hw02;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cs3500.klondike.bench.Games;
+
+/**
+ * Dealing a new game: a new model, then {@link BasicKlondike#startGame}, which checks the
+ * deck, deals the cascades and the stock, and builds the move index and position hash.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StartGameBenchmark {
+  @Param({"7", "13"})
+  int runLength;
+
+  @Param({"4", "7"})
+  int numPiles;
+
+  @Param({"1", "3"})
+  int numDraw;
+
+  @Param({"false", "true"})
+  boolean shuffle;
+
+  private List<Card> deck;
+
+  @Setup
+  public void setUp() {
+    deck = new ArrayList<>(Games.shuffled(runLength, 42));
+  }
+
+  @Benchmark
+  public BasicKlondike startGame() {
+    BasicKlondike model = new BasicKlondike();
+    model.startGame(deck, shuffle, numPiles, numDraw);
+    return model;
+  }
+}
@@ -0,0 +1,114 @@
+package cs3500.klondike.view;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cs3500.klondike.bench.Games;
+import cs3500.klondike.model.hw02.BasicKlondike;
+
+/**
+ * Rendering a game part way through as text, as the controller does after every move:
+ * to a new string, and into a buffer that is reused for every render. The move benchmarks
+ * make each legal move in turn, render, take it back and render again, with the full
+ * view, the incremental view, and the incremental view's changed lines only.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ViewBenchmark {
+  @Param({"4", "7"})
+  int numPiles;
+
+  @Param({"1", "3"})
+  int numDraw;
+
+  private KlondikeTextualView view;
+  private StringBuilder buffer;
+  private BasicKlondike game;
+  private KlondikeIncrementalView incremental;
+  private int[] moves;
+  private int numMoves;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    buffer = new StringBuilder(1024);
+    game = Games.midGame(numPiles, numDraw, 42);
+    view = new KlondikeTextualView(game, buffer);
+    incremental = new KlondikeIncrementalView(game, buffer);
+    moves = new int[1024];
+    numMoves = game.generateMoves(moves);
+  }
+
+  @Benchmark
+  public String renderToString() {
+    return view.toString();
+  }
+
+  @Benchmark
+  public StringBuilder renderToBuffer() throws IOException {
+    buffer.setLength(0);
+    view.render();
+    return buffer;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(2)
+  public StringBuilder moveAndRender() throws IOException {
+    playNext();
+    buffer.setLength(0);
+    view.render();
+    game.undo();
+    buffer.setLength(0);
+    view.render();
+    return buffer;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(2)
+  public StringBuilder moveAndRenderIncremental() throws IOException {
+    playNext();
+    buffer.setLength(0);
+    incremental.render();
+    game.undo();
+    buffer.setLength(0);
+    incremental.render();
+    return buffer;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(2)
+  public StringBuilder moveAndRenderDelta() throws IOException {
+    playNext();
+    buffer.setLength(0);
+    incremental.renderDelta();
+    game.undo();
+    buffer.setLength(0);
+    incremental.renderDelta();
+    return buffer;
+  }
+
+  // make the next of the legal moves of the starting position, in turn
+  private void playNext() {
+    game.apply(moves[next]);
+    if (++next == numMoves) {
+      next = 0;
+    }
+  }
+}
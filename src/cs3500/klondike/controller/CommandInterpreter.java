@@ -0,0 +1,273 @@
+package cs3500.klondike.controller;
+
+import java.io.IOException;
+
+import cs3500.klondike.model.hw02.BasicKlondike;
+import cs3500.klondike.model.hw02.Card;
+import cs3500.klondike.model.hw02.KlondikeModel;
+import cs3500.klondike.view.KlondikeIncrementalView;
+import cs3500.klondike.view.KlondikeTextualView;
+import cs3500.klondike.view.TextView;
+
+/**
+ * Plays one started game from the command language of {@link KlondikeTextualController},
+ * one token at a time, and writes the responses to an {@link Appendable}.
+ *
+ * <p>Tokens are pushed in by the caller rather than pulled from a source, so the same
+ * commands can be driven by a blocking reader, as the textual controller does, or by
+ * whatever bytes a non-blocking connection has delivered so far, with a command free to
+ * arrive split across several reads. Tokens are passed as a reused character array and
+ * arguments are read straight into ints, so feeding a token allocates nothing.
+ */
+public final class CommandInterpreter {
+  // the value of number(...) for a token that is not a whole number
+  private static final int NOT_A_NUMBER = Integer.MIN_VALUE;
+
+  private static final int NONE = -1;
+  private static final int UNKNOWN = 0;
+  private static final int MOVE_PILE = 1;
+  private static final int MOVE_DRAW = 2;
+  private static final int MOVE_TO_FOUNDATION = 3;
+  private static final int MOVE_DRAW_TO_FOUNDATION = 4;
+  private static final int DISCARD_DRAW = 5;
+
+  private final KlondikeModel model;
+  private final Appendable out;
+  private final TextView view;
+  private final boolean quiet;
+
+  // the command whose arguments are being read, or NONE
+  private int command = NONE;
+  private final int[] args = new int[3];
+  private int numArgs;
+  private boolean finished;
+
+  /**
+   * an interpreter of commands for the given started game. A {@link BasicKlondike} is
+   * rendered with a {@link KlondikeIncrementalView}, which only redraws what each move
+   * changed.
+   * @param model the game, already started
+   * @param out   where to write the responses
+   * @param quiet true to write the game only when it ends or is quit
+   * @throws IllegalArgumentException if the model or destination is null
+   */
+  public CommandInterpreter(KlondikeModel model, Appendable out, boolean quiet) {
+    if (model == null || out == null) {
+      throw new IllegalArgumentException("Model and output cannot be null");
+    }
+    this.model = model;
+    this.out = out;
+    this.quiet = quiet;
+    this.view = model instanceof BasicKlondike
+            ? new KlondikeIncrementalView((BasicKlondike) model, out)
+            : new KlondikeTextualView(model, out);
+  }
+
+  /**
+   * write the game as it starts, unless quiet, and end it at once if it is already over.
+   * Call this once, before any token.
+   * @throws IOException if the destination fails to append
+   */
+  public void start() throws IOException {
+    if (!quiet) {
+      writeState();
+    }
+    if (model.isGameOver()) {
+      finish();
+    }
+  }
+
+  /**
+   * whether the game has ended, by being over or by a quit, so that no more tokens are
+   * wanted.
+   * @return true if the game has ended
+   */
+  public boolean isFinished() {
+    return finished;
+  }
+
+  /**
+   * play the next token: a command, an argument of the command before it, or anything
+   * else, which is skipped where an argument is expected and rejected where a command
+   * is.
+   * @param token  the characters of the token; only read during the call
+   * @param length the number of characters in the token
+   * @throws IOException           if the destination fails to append
+   * @throws IllegalStateException if the game has already ended
+   */
+  public void accept(char[] token, int length) throws IOException {
+    if (finished) {
+      throw new IllegalStateException("Game has ended");
+    }
+    if (is(token, length, "q") || is(token, length, "Q")) {
+      out.append("Game quit!\nState of game when quit:\n");
+      writeState();
+      finished = true;
+      return;
+    }
+    if (command == NONE) {
+      command = command(token, length);
+      numArgs = 0;
+      if (command == UNKNOWN) {
+        command = NONE;
+        out.append("Invalid move. Play again. Unrecognized command ")
+                .append(new String(token, 0, length)).append('\n');
+        return;
+      }
+    } else {
+      int value = number(token, length);
+      if (value == NOT_A_NUMBER) {
+        return;
+      }
+      args[numArgs++] = value;
+    }
+    if (numArgs == arity(command)) {
+      int ready = command;
+      command = NONE;
+      play(ready);
+    }
+  }
+
+  // make the move of a command whose arguments have all been read
+  private void play(int command) throws IOException {
+    try {
+      switch (command) {
+        case MOVE_PILE:
+          model.movePile(args[0] - 1, args[1], args[2] - 1);
+          break;
+        case MOVE_DRAW:
+          model.moveDraw(args[0] - 1);
+          break;
+        case MOVE_TO_FOUNDATION:
+          model.moveToFoundation(args[0] - 1, args[1] - 1);
+          break;
+        case MOVE_DRAW_TO_FOUNDATION:
+          model.moveDrawToFoundation(args[0] - 1);
+          break;
+        default:
+          model.discardDraw();
+          break;
+      }
+    } catch (IllegalArgumentException | IllegalStateException e) {
+      out.append("Invalid move. Play again. ").append(e.getMessage()).append('\n');
+      return;
+    }
+    if (!quiet) {
+      writeState();
+    }
+    if (model.isGameOver()) {
+      finish();
+    }
+  }
+
+  private void finish() throws IOException {
+    if (quiet) {
+      writeState();
+    }
+    if (isWon()) {
+      out.append("You win!\n");
+    } else {
+      out.append("Game over. Score: ");
+      appendInt(model.getScore());
+      out.append('\n');
+    }
+    finished = true;
+  }
+
+  // whether every card is on the foundations: foundations are built up from the Ace, so a
+  // foundation topped with the highest rank holds a whole run, and there is one
+  // foundation per run in the deck
+  private boolean isWon() {
+    int maxRank = model.getDeckProfile().getMaxRank();
+    for (int f = 0; f < model.getNumFoundations(); f++) {
+      Card top = model.getCardAt(f);
+      if (top == null || top.getRankValue() != maxRank) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void writeState() throws IOException {
+    view.render();
+    out.append("\nScore: ");
+    appendInt(model.getScore());
+    out.append('\n');
+  }
+
+  private void appendInt(int value) throws IOException {
+    if (out instanceof StringBuilder) {
+      ((StringBuilder) out).append(value);
+    } else {
+      out.append(Integer.toString(value));
+    }
+  }
+
+  private static int command(char[] token, int length) {
+    if (is(token, length, "mpp")) {
+      return MOVE_PILE;
+    } else if (is(token, length, "md")) {
+      return MOVE_DRAW;
+    } else if (is(token, length, "mpf")) {
+      return MOVE_TO_FOUNDATION;
+    } else if (is(token, length, "mdf")) {
+      return MOVE_DRAW_TO_FOUNDATION;
+    } else if (is(token, length, "dd")) {
+      return DISCARD_DRAW;
+    }
+    return UNKNOWN;
+  }
+
+  private static int arity(int command) {
+    switch (command) {
+      case MOVE_PILE:
+        return 3;
+      case MOVE_TO_FOUNDATION:
+        return 2;
+      case MOVE_DRAW:
+      case MOVE_DRAW_TO_FOUNDATION:
+        return 1;
+      default:
+        return 0;
+    }
+  }
+
+  // whether the token is exactly the given text
+  private static boolean is(char[] token, int length, String text) {
+    if (text.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (token[i] != text.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // the token as a whole number with an optional sign, or NOT_A_NUMBER if it is not a
+  // number that fits an int
+  private static int number(char[] token, int length) {
+    int i = 0;
+    boolean negative = false;
+    if (length > 1 && (token[0] == '-' || token[0] == '+')) {
+      negative = token[0] == '-';
+      i = 1;
+    }
+    if (i == length) {
+      return NOT_A_NUMBER;
+    }
+    long value = 0;
+    for (; i < length; i++) {
+      int digit = token[i] - '0';
+      if (digit < 0 || digit > 9) {
+        return NOT_A_NUMBER;
+      }
+      value = value * 10 + digit;
+      if (value > Integer.MAX_VALUE) {
+        return NOT_A_NUMBER;
+      }
+    }
+    return (int) (negative ? -value : value);
+  }
+}
@@ -0,0 +1,109 @@
+package cs3500.klondike.controller;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Splits the text of a {@link Readable} into whitespace-separated tokens, without
+ * {@link java.util.Scanner} or regular expressions.
+ *
+ * <p>The text is read in large blocks into one reused buffer, and each token is copied
+ * into one reused character array, so reading a token allocates nothing. Before every
+ * read from the source, which may block until the player types more, the given
+ * {@link Flushable} is flushed, so anything the player should see first is sent before
+ * the controller waits for them.
+ */
+final class CommandTokenizer {
+  private final Readable in;
+  private final Flushable beforeRead;
+  private final CharBuffer buffer = CharBuffer.allocate(8192);
+  private boolean exhausted;
+
+  private char[] token = new char[16];
+  private int length;
+
+  /**
+   * a tokenizer of the given source.
+   * @param in         the text to split
+   * @param beforeRead flushed before every read from the source
+   */
+  CommandTokenizer(Readable in, Flushable beforeRead) {
+    this.in = in;
+    this.beforeRead = beforeRead;
+    buffer.flip();
+  }
+
+  /**
+   * move to the next token.
+   * @return false if the source has no more tokens
+   * @throws IOException if the source or the flush fails
+   */
+  boolean next() throws IOException {
+    length = 0;
+    // skip the whitespace before the token
+    while (true) {
+      if (!buffer.hasRemaining() && !fill()) {
+        return false;
+      }
+      if (!Character.isWhitespace(buffer.get(buffer.position()))) {
+        break;
+      }
+      buffer.get();
+    }
+    // copy the token, which may span several reads
+    while (buffer.hasRemaining() || fill()) {
+      char c = buffer.get(buffer.position());
+      if (Character.isWhitespace(c)) {
+        break;
+      }
+      buffer.get();
+      if (length == token.length) {
+        token = Arrays.copyOf(token, length * 2);
+      }
+      token[length++] = c;
+    }
+    return true;
+  }
+
+  /**
+   * the characters of the current token, valid until the next call to {@link #next()}.
+   * @return the reused array that starts with the token
+   */
+  char[] chars() {
+    return token;
+  }
+
+  /**
+   * the number of characters in the current token.
+   * @return the length of the token
+   */
+  int length() {
+    return length;
+  }
+
+  @Override
+  public String toString() {
+    return new String(token, 0, length);
+  }
+
+  // read the next block of text into the empty buffer
+  private boolean fill() throws IOException {
+    if (exhausted) {
+      return false;
+    }
+    beforeRead.flush();
+    buffer.clear();
+    int read;
+    do {
+      read = in.read(buffer);
+    } while (read == 0);
+    buffer.flip();
+    if (read < 0) {
+      exhausted = true;
+      return false;
+    }
+    return true;
+  }
+}
@@ -1,16 +1,115 @@
 package cs3500.klondike.controller;
 
+import java.io.IOException;
+import java.util.List;
+
+import cs3500.klondike.model.hw02.Card;
 import cs3500.klondike.model.hw02.KlondikeModel;
 
-import java.util.List;
+/**
+ * A controller that plays a game of Klondike from text commands, and writes the game as
+ * text after every move.
+ *
+ * <p>The commands are, with piles and foundations numbered from 1:
+ * <pre>
+ *   mpp source-pile number-of-cards destination-pile   move cards between piles
+ *   md destination-pile                                move the draw card to a pile
+ *   mpf source-pile foundation                         move a pile's top card to a foundation
+ *   mdf foundation                                     move the draw card to a foundation
+ *   dd                                                 discard the draw card
+ *   q or Q                                             quit
+ * </pre>
+ * Anything that is not a number where a number is expected is skipped, and q or Q quits
+ * there too.
+ *
+ * <p>Commands are split from the input by a {@link CommandTokenizer}, which neither makes
+ * strings nor uses regular expressions, and played by a {@link CommandInterpreter}, which
+ * reads the arguments straight into ints. Output is gathered in a buffer and sent to the
+ * destination in large pieces: when the buffer fills, at the end of the game, and
+ * whenever the controller is about to wait for more input, so a player at a terminal
+ * still sees every response before typing the next command. A quiet controller, for
+ * playing long scripts of commands, writes nothing but failed moves until the game ends
+ * or is quit.
+ */
+public class KlondikeTextualController implements KlondikeController {
+  // output gathered before it is sent on
+  private static final int FLUSH_AT = 1 << 16;
 
-public class KlondikeTextualController implements cs3500.klondike.controller.KlondikeController {
+  private final Appendable out;
+  private final boolean quiet;
+  private final CommandTokenizer tokens;
+  private final StringBuilder pending = new StringBuilder(FLUSH_AT);
+
+  /**
+   * a controller that reads commands from the given source and writes the game after every
+   * move to the given destination.
+   * @param r where to read commands from
+   * @param a where to write the game
+   * @throws IllegalArgumentException if either argument is null
+   */
   public KlondikeTextualController(Readable r, Appendable a) {
-    throw new RuntimeException("If you got this to run, your tests compile correctly against the data definitions.");
+    this(r, a, false);
+  }
+
+  /**
+   * a controller that reads commands from the given source and writes to the given
+   * destination, either after every move or, if quiet, only once the game ends.
+   * @param r     where to read commands from
+   * @param a     where to write the game
+   * @param quiet true to write the game only when it ends or is quit
+   * @throws IllegalArgumentException if either source or destination is null
+   */
+  public KlondikeTextualController(Readable r, Appendable a, boolean quiet) {
+    if (r == null || a == null) {
+      throw new IllegalArgumentException("Readable and Appendable cannot be null");
+    }
+    this.out = a;
+    this.quiet = quiet;
+    this.tokens = new CommandTokenizer(r, this::flush);
   }
 
   @Override
-  public void playGame(KlondikeModel model, List<Card> deck, boolean shuffle, int numPiles, int numDraw) {
-    throw new RuntimeException("If you got this to run, your tests compile correctly against the data definitions.");
+  public void playGame(KlondikeModel model, List<Card> deck, boolean shuffle, int numPiles,
+                       int numDraw) {
+    if (model == null) {
+      throw new IllegalArgumentException("Model cannot be null");
+    }
+    try {
+      model.startGame(deck, shuffle, numPiles, numDraw);
+    } catch (IllegalArgumentException | IllegalStateException e) {
+      throw new IllegalStateException("Game cannot be started: " + e.getMessage(), e);
+    }
+    CommandInterpreter game = new CommandInterpreter(model, pending, quiet);
+    try {
+      try {
+        play(game);
+      } finally {
+        flush();
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot write to the Appendable", e);
+    }
+  }
+
+  // play until the game ends, the player quits or the input runs out
+  private void play(CommandInterpreter game) throws IOException {
+    game.start();
+    while (!game.isFinished()) {
+      if (!tokens.next()) {
+        throw new IllegalStateException("Ran out of input");
+      }
+      game.accept(tokens.chars(), tokens.length());
+      if (pending.length() >= FLUSH_AT) {
+        flush();
+      }
+    }
+  }
+
+  // send the gathered output on
+  private void flush() throws IOException {
+    if (pending.length() > 0) {
+      out.append(pending);
+      pending.setLength(0);
+    }
   }
 }
@@ -2,12 +2,7 @@ package cs3500.klondike.model.hw02;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * This is a representation of the game that store the current state of the game. After it
@@ -33,6 +28,41 @@ public class BasicKlondike implements KlondikeModel {
   // Add a new field at the class level to store the rest of the cards
   protected List<Card> restOfDeck;
 
+  // number of face-down cards at the bottom of each cascade pile; every card above them
+  // is face-up. Draw and foundation cards are always face-up.
+  protected int[] faceDownCounts;
+
+  // the legal moves of the current state, updated by every move
+  protected final MoveIndex moveIndex = new MoveIndex();
+
+  // Zobrist hash of the current state, updated by every move
+  protected long positionHash;
+
+  // rule facts of the dealt deck, computed once in startGame
+  protected DeckProfile profile;
+
+  // change stamps for incremental views: version grows with every change, and each cascade
+  // pile, foundation pile and the draw cards keep the version of their last change
+  protected long version;
+  protected long[] pileVersions;
+  protected long[] foundationVersions;
+  protected long drawVersion;
+
+  // where every change is published, or null; never shared with copies
+  protected KlondikeEvents events;
+
+  // the journal of a game no move has been made in, e.g. a fresh copy
+  private static final long[] NO_MOVES = new long[0];
+
+  // one record per move made, see journal(...); the first journalSize records are the
+  // moves that can be undone, and the records after them up to journalEnd can be redone
+  protected long[] journal = NO_MOVES;
+  protected int journalSize;
+  protected int journalEnd;
+
+  // the number of copies of each card in a valid deck
+  protected int numDecks;
+
   //rule of the draw number of the game
   protected int numDraw;
   protected int numPiles;
@@ -43,12 +73,33 @@ public class BasicKlondike implements KlondikeModel {
    * the initialization of the BasicKlondike constructor.
    */
   public BasicKlondike() {
+    this(1);
+  }
+
+  /**
+   * A game played with the given number of standard decks shuffled together, such as the
+   * 104 cards of double-deck Klondike. A valid deck then has exactly that many copies of
+   * every card, and there is one foundation pile per Ace. Foundation piles are not tied
+   * to a suit, as in a single-deck game: any Ace may start any empty one.
+   *
+   * <p>Copies of a card are the same shared {@link KlondikeCard}, and equal to each other.
+   * The game only ever tells cards apart by where they are, never by comparing them, so
+   * any number of copies can be in play at once.</p>
+   *
+   * @param numDecks the number of copies of each card
+   * @throws IllegalArgumentException if the number of decks is not positive
+   */
+  public BasicKlondike(int numDecks) {
+    if (numDecks <= 0) {
+      throw new IllegalArgumentException("Number of decks must be positive.");
+    }
+    this.numDecks = numDecks;
 
     // Generate a default deck
-    this.deck = generateDefaultDeck();
+    this.deck = generateDefaultDeck(numDecks);
 
     // Check if the deck is valid
-    if (!isValidDeck(deck)) {
+    if (deckProblem(deck, numDecks) != null) {
       throw new IllegalArgumentException("Generated deck is invalid!");
     }
 
@@ -64,80 +115,178 @@ public class BasicKlondike implements KlondikeModel {
     this.numDraw = numDraw;
 
     // Initialize the empty drawPile
-    drawPile = new ArrayList<>();
+    drawPile = new CardPile();
 
     // Initialize restOfDeck
-    restOfDeck = new ArrayList<>();
+    restOfDeck = new CardPile();
+
+    faceDownCounts = new int[0];
 
     this.isGameStarted = false;
 
   }
 
-  private static List<Card> generateDefaultDeck() {
-
-    List<Card> deck = new ArrayList<>();
+  /**
+   * Makes an independent copy of this game, in the same position. The piles of the copy
+   * share their cards with this game until either game changes them, so making a copy
+   * takes time in proportion to the number of piles, not the number of cards. The copy
+   * starts with no moves to undo or redo.
+   *
+   * <p>Neither game is affected by moves made on the other, so copies can be played on
+   * other threads, as long as this game is not changed while it is being copied.</p>
+   *
+   * @return the copy
+   * @throws IllegalStateException if the game hasn't been started yet
+   */
+  public BasicKlondike copy() throws IllegalStateException {
+    ensureGameStarted();
+    return new BasicKlondike(this);
+  }
 
-    KlondikeCard.Suits[] suits = KlondikeCard.Suits.values();
-    String[] values = {"A", "2", "3", "4", "5", "6", "7", "8", "9", "10", "J", "Q", "K"};
+  // the copy behind copy(); the deck and profile are never changed after startGame, so
+  // they can be shared outright
+  private BasicKlondike(BasicKlondike other) {
+    this.deck = other.deck;
+    this.profile = other.profile;
+    this.numDecks = other.numDecks;
+    this.numDraw = other.numDraw;
+    this.numPiles = other.numPiles;
+    this.cascade = sharePiles(other.cascade);
+    this.foundations = sharePiles(other.foundations);
+    this.drawPile = sharePile(other.drawPile);
+    this.restOfDeck = sharePile(other.restOfDeck);
+    this.faceDownCounts = other.faceDownCounts.clone();
+    this.moveIndex.copyFrom(other.moveIndex);
+    this.positionHash = other.positionHash;
+    this.version = other.version;
+    this.pileVersions = other.pileVersions.clone();
+    this.foundationVersions = other.foundationVersions.clone();
+    this.drawVersion = other.drawVersion;
+    this.isGameStarted = true;
+  }
 
-    for (KlondikeCard.Suits suit : suits) {
-      for (String value : values) {
-        deck.add(new KlondikeCard(suit, value));
-      }
+  private static List<List<Card>> sharePiles(List<List<Card>> piles) {
+    List<List<Card>> copy = new ArrayList<>(piles.size());
+    for (List<Card> pile : piles) {
+      copy.add(sharePile(pile));
     }
-    return deck;
+    return copy;
   }
 
+  private static List<Card> sharePile(List<Card> pile) {
+    if (pile instanceof CardPile) {
+      return ((CardPile) pile).share();
+    }
+    // a pile a subclass put in place; copy its cards once
+    CardPile copy = new CardPile();
+    copy.addAll(pile);
+    return copy;
+  }
 
-  private boolean isValidDeck(List<Card> deck) {
+  // the standard 52 card deck, made of the shared card instances
+  private static final List<Card> DEFAULT_DECK = buildDefaultDeck();
 
-    if (deck == null) {
-      return false; // Handle the case of a null deck
+  private static List<Card> buildDefaultDeck() {
+    List<Card> deck = new ArrayList<>();
+    for (KlondikeCard.Suits suit : KlondikeCard.Suits.values()) {
+      for (Rank rank : Rank.values()) {
+        deck.add(KlondikeCard.of(suit, rank));
+      }
     }
+    return Collections.unmodifiableList(deck);
+  }
 
-    // Check each card in the deck for null.
-    for (Card card : deck) {
-      if (card == null) {
-        return false; // Handle the case of a null card in the deck
-      }
+  static List<Card> generateDefaultDeck() {
+    return DEFAULT_DECK;
+  }
+
+  // the given number of standard decks, one after another
+  static List<Card> generateDefaultDeck(int numDecks) {
+    if (numDecks == 1) {
+      return DEFAULT_DECK;
     }
+    List<Card> deck = new ArrayList<>(DEFAULT_DECK.size() * numDecks);
+    for (int i = 0; i < numDecks; i++) {
+      deck.addAll(DEFAULT_DECK);
+    }
+    return Collections.unmodifiableList(deck);
+  }
 
-    // Group cards by suit
-    Map<KlondikeCard.Suits, List<Card>> groupedBySuit = deck.stream()
-            .collect(Collectors.groupingBy(card -> ((KlondikeCard) card).getSuit()));
 
-    int runLength = -1;
+  private static final KlondikeCard.Suits[] SUITS = KlondikeCard.Suits.values();
 
-    for (List<Card> suitCards : groupedBySuit.values()) {
-      // Sort cards within a suit by their rank values
-      suitCards.sort(Comparator.comparingInt(Card::getRankValue));
+  static boolean isValidDeck(List<Card> deck) {
+    return deckProblem(deck, 1) == null;
+  }
 
-      // Check if the first card of this suit is an Ace. this might be wrong
-      if (!suitCards.get(0).getRank().equals("A")) {
-        return false;
+  /**
+   * check that the deck is made of equal-length runs, one per suit present, each starting
+   * at the Ace, with every card exactly the given number of times. The check makes one
+   * pass over the deck: every card is one bit of a 64-bit mask, at its {@link PackedCard}
+   * value, so a suit's cards are a 16-bit field of the mask. A single deck is checked
+   * without allocating unless it is rejected; several decks also count each card.
+   * @param deck   the deck to check
+   * @param copies the number of copies of each card
+   * @return why the deck is not valid, or null if it is
+   */
+  static String deckProblem(List<Card> deck, int copies) {
+    if (deck == null) {
+      return "deck is null";
+    }
+    long seen = 0;
+    int[] counts = copies == 1 ? null : new int[64];
+    for (int i = 0; i < deck.size(); i++) {
+      Card card = deck.get(i);
+      if (card == null) {
+        return "card " + i + " is null";
       }
-
-      // If the runLength has not been set yet (i.e., this is the first suit we're checking),
-      // set it to the length of this suit's run
-      if (runLength == -1) {
-        runLength = suitCards.size();
+      int rank = card.getRankValue();
+      if (rank < 1 || rank > 15) {
+        return "card " + i + " has rank " + rank;
       }
-
-      // If the current suit's run length doesn't match the length of the first suit's run,
-      // return false
-      if (suitCards.size() != runLength) {
-        return false;
+      int packed = PackedCard.pack(card.getSuit().ordinal(), rank);
+      long bit = 1L << packed;
+      if (counts != null) {
+        counts[packed]++;
+      } else if ((seen & bit) != 0) {
+        return "card " + i + " (" + card + ") is a duplicate";
       }
-
-      // Check if the cards form a consecutive sequence
-      for (int i = 1; i < suitCards.size(); i++) {
-        if (suitCards.get(i).getRankValue() != suitCards.get(i - 1).getRankValue() + 1) {
-          return false;
+      seen |= bit;
+    }
+    if (counts != null) {
+      for (int packed = 0; packed < counts.length; packed++) {
+        if (counts[packed] != 0 && counts[packed] != copies) {
+          return PackedCard.unpack((byte) packed) + " is in the deck " + counts[packed]
+                  + " times instead of " + copies;
         }
       }
     }
 
-    return true;
+    int runLength = -1;
+    KlondikeCard.Suits firstSuit = null;
+    for (KlondikeCard.Suits suit : SUITS) {
+      // the suit's ranks, shifted so that the Ace is bit 0
+      long ranks = (seen >>> (suit.ordinal() << 4) >>> 1) & 0x7FFF;
+      if (ranks == 0) {
+        continue;
+      }
+      // a run from the Ace is a block of ones from bit 0, which adding one clears
+      if ((ranks & 1) == 0) {
+        return "the " + suit + " cards do not start at the Ace";
+      }
+      if ((ranks & (ranks + 1)) != 0) {
+        return "the " + suit + " cards skip rank " + (Long.numberOfTrailingZeros(~ranks) + 1);
+      }
+      int length = Long.bitCount(ranks);
+      if (runLength == -1) {
+        runLength = length;
+        firstSuit = suit;
+      } else if (length != runLength) {
+        return "there are " + runLength + " " + firstSuit + " cards but " + length + " "
+                + suit + " cards";
+      }
+    }
+    return null;
   }
 
 
@@ -152,12 +301,30 @@ public class BasicKlondike implements KlondikeModel {
    */
   @Override
   public List<Card> getDeck() {
+    return getDeck(Deals.randomDealNumber());
+  }
+
+  /**
+   * Return the cards of {@link #getDeck()} in the order of the given deal. The same deal
+   * number gives the same order on every run and machine, so a deal can be named by its
+   * number and played again later.
+   *
+   * @param dealNumber the deal number
+   * @return the deck of cards as a list
+   */
+  public List<Card> getDeck(long dealNumber) {
     if (deck == null) {
       return new ArrayList<>(); // Return an empty list if deck is null
     }
-    List<Card> shuffledDeck = new ArrayList<>(deck);
-    Collections.shuffle(shuffledDeck);
-    return shuffledDeck;
+    return unpack(Deals.deal(deck, dealNumber));
+  }
+
+  private static List<Card> unpack(byte[] cards) {
+    List<Card> list = new ArrayList<>(cards.length);
+    for (byte card : cards) {
+      list.add(PackedCard.unpack(card));
+    }
+    return list;
   }
 
   /**
@@ -192,7 +359,31 @@ public class BasicKlondike implements KlondikeModel {
   @Override
   public void startGame(List<Card> deck, boolean shuffle, int numPiles, int numDraw)
           throws IllegalArgumentException {
+    deal(deck, shuffle, Deals.randomDealNumber(), numPiles, numDraw);
+  }
 
+  /**
+   * Deal a new game of Klondike from the given deck, shuffled into the order of the given
+   * deal number. The order does not depend on the order of {@code deck}, and the same deck
+   * and deal number deal the same game on every run and machine. Otherwise this is
+   * {@link #startGame(List, boolean, int, int)} with {@code shuffle} set.
+   *
+   * @param deck       the cards to be dealt, in any order; the list is not changed
+   * @param dealNumber the deal number
+   * @param numPiles   number of piles to be dealt
+   * @param numDraw    maximum number of draw cards available at a time
+   * @throws IllegalStateException    if the game has already started
+   * @throws IllegalArgumentException if the deck is null or invalid,
+   *                                  a full cascade cannot be dealt with the given sizes,
+   *                                  or another input is invalid
+   */
+  public void startGame(List<Card> deck, long dealNumber, int numPiles, int numDraw)
+          throws IllegalArgumentException {
+    deal(deck, true, dealNumber, numPiles, numDraw);
+  }
+
+  private void deal(List<Card> deck, boolean shuffle, long dealNumber, int numPiles,
+                    int numDraw) {
     if (isGameStarted) {
       throw new IllegalStateException("The game has already started.");
     }
@@ -201,13 +392,7 @@ public class BasicKlondike implements KlondikeModel {
       throw new IllegalArgumentException("Deck is null or invalid");
     }
 
-    Set<Card> cardSet = new HashSet<>(deck);
-    if (cardSet.size() != deck.size()) {
-      throw new IllegalArgumentException("Deck contains duplicate cards");
-    }
-
-
-    if (numPiles < 0 || numDraw < 0) {
+    if (numPiles <= 0 || numDraw < 0) {
       throw new IllegalArgumentException("Invalid number of cascade piles.");
     }
 
@@ -218,69 +403,152 @@ public class BasicKlondike implements KlondikeModel {
     }
 
 
-    if (!isValidDeck(deck)) {
-      throw new IllegalArgumentException("Provided deck is not valid for Klondike");
+    String problem = deckProblem(deck, numDecks);
+    if (problem != null) {
+      throw new IllegalArgumentException("Provided deck is not valid for Klondike: " + problem);
     }
 
 
+    // use the shared card instances, whatever Card implementation the caller passed in;
+    // a shuffle works on this copy, never on the caller's list
     if (shuffle) {
-      Collections.shuffle(deck);
+      this.deck = unpack(Deals.deal(deck, dealNumber));
+    } else {
+      this.deck = new ArrayList<>(deck.size());
+      for (Card card : deck) {
+        this.deck.add(KlondikeCard.of(card));
+      }
     }
-
-    this.deck = new ArrayList<>(deck);
+    deck = this.deck;
+    this.profile = DeckProfile.of(deck);
     this.numPiles = numPiles;
     this.numDraw = numDraw;
 
     cascade.clear();
     for (int i = 0; i < numPiles; i++) {
-      cascade.add(new ArrayList<>());
+      cascade.add(new CardPile());
     }
+    faceDownCounts = new int[numPiles];
 
     foundations.clear();
-    int aceCount = (int) deck.stream().filter(card -> ((KlondikeCard) card).getRank().
-            equals("A")).count();
+    int aceCount = profile.getNumAces();
     for (int i = 0; i < aceCount; i++) {
-      foundations.add(new ArrayList<>());
+      foundations.add(new CardPile());
     }
 
     // Handling the cascade piles
     int cardIndex = 0;
-    int rows = deck.size() / numPiles;
-
-    for (int row = 0; row <= rows; row++) {
+    // The last pile is the tallest, with one card per pile
+    for (int row = 0; row < numPiles; row++) {
       for (int pileNumber = 0; pileNumber < numPiles; pileNumber++) {
         if (row <= pileNumber) {  // Make sure we're not trying to deal to a pile that's supposed to have fewer cards
           if (cardIndex >= deck.size()) {
             break;
           }
-          KlondikeCard card = (KlondikeCard) deck.get(cardIndex++);
-
-          if (row == pileNumber) {
-            card.setVisible(true); // Set only the card in the last row of each pile to be visible
-          } else {
-            card.setVisible(false);
-          }
+          Card card = deck.get(cardIndex++);
           cascade.get(pileNumber).add(card);
         }
       }
     }
 
+    // Only the card in the last row of each pile is visible
+    for (int pileNumber = 0; pileNumber < numPiles; pileNumber++) {
+      faceDownCounts[pileNumber] = cascade.get(pileNumber).size() - 1;
+    }
+
     drawPile.clear();
-    restOfDeck = new ArrayList<>();
+    restOfDeck = new CardPile();
 
     for (int i = 0; i < Math.min(numDraw, deck.size() - cardIndex); i++) {
-      KlondikeCard card = (KlondikeCard) deck.get(cardIndex++);
-      card.setVisible(true);
-      drawPile.add(card);
+      drawPile.add(deck.get(cardIndex++));
     }
 
     while (cardIndex < deck.size()) {
-      KlondikeCard card = (KlondikeCard) deck.get(cardIndex++);
-      card.setVisible(false);
-      restOfDeck.add(card);
+      restOfDeck.add(deck.get(cardIndex++));
     }
 
+    initDerivedState();
+  }
+
+  // Builds the move index and position hash of the dealt cards, forgets any move history,
+  // and marks the game started
+  private void initDerivedState() {
+    pileVersions = new long[numPiles];
+    foundationVersions = new long[foundations.size()];
+    moveIndex.reset(profile.getMaxRank());
+    for (int pileNumber = 0; pileNumber < numPiles; pileNumber++) {
+      List<Card> pile = cascade.get(pileNumber);
+      for (int i = faceDownCounts[pileNumber]; i < pile.size(); i++) {
+        moveIndex.faceUpCard(pile.get(i), 1);
+      }
+      indexPileTop(pileNumber, 1);
+    }
+    for (int i = 0; i < foundations.size(); i++) {
+      indexFoundationTop(i, 1);
+    }
+    indexDrawTop(1);
+    positionHash = computePositionHash();
+    journalSize = 0;
+    journalEnd = 0;
+
     this.isGameStarted = true;
+    if (events != null) {
+      events.publish(KlondikeEvents.START, numPiles, 0, numDraw, PackedCard.NONE);
+    }
+  }
+
+  /**
+   * Publishes every change to this game from now on, including its next deal, to the
+   * given stream, or stops publishing if it is null. Copies of the game do not publish.
+   *
+   * @param events the stream to publish to, or null
+   */
+  public void publishTo(KlondikeEvents events) {
+    this.events = events;
+  }
+
+  /**
+   * Assembles a started game from its piles, without the deck checks of
+   * {@link #startGame}, for piles that were taken from a started game. The piles are used
+   * as they are, not copied.
+   *
+   * @param cascade        the cascade piles, bottom card first
+   * @param faceDownCounts the number of face-down cards at the bottom of each cascade pile
+   * @param foundations    the foundation piles, Ace first
+   * @param drawPile       the visible draw cards, top card first
+   * @param restOfDeck     the rest of the stock, next card to draw first
+   * @param numDraw        the number of draw cards
+   * @return the game
+   */
+  static BasicKlondike restore(List<List<Card>> cascade, int[] faceDownCounts,
+                               List<List<Card>> foundations, List<Card> drawPile,
+                               List<Card> restOfDeck, int numDraw) {
+    return new BasicKlondike(cascade, faceDownCounts, foundations, drawPile, restOfDeck,
+            numDraw);
+  }
+
+  private BasicKlondike(List<List<Card>> cascade, int[] faceDownCounts,
+                        List<List<Card>> foundations, List<Card> drawPile,
+                        List<Card> restOfDeck, int numDraw) {
+    this.cascade = cascade;
+    this.faceDownCounts = faceDownCounts;
+    this.foundations = foundations;
+    this.drawPile = drawPile;
+    this.restOfDeck = restOfDeck;
+    this.numPiles = cascade.size();
+    this.numDraw = numDraw;
+    this.deck = new ArrayList<>();
+    for (List<Card> pile : cascade) {
+      deck.addAll(pile);
+    }
+    for (List<Card> pile : foundations) {
+      deck.addAll(pile);
+    }
+    deck.addAll(drawPile);
+    deck.addAll(restOfDeck);
+    this.profile = DeckProfile.of(deck);
+    this.numDecks = profile.getNumDecks();
+    initDerivedState();
   }
 
 
@@ -312,10 +580,14 @@ public class BasicKlondike implements KlondikeModel {
     List<Card> sourceCards = cascade.get(srcPile);
     List<Card> destCards = cascade.get(destPile);
 
-    if (sourceCards.size() < numCards) {
+    if (numCards <= 0 || sourceCards.size() < numCards) {
       throw new IllegalArgumentException("Not enough cards in source pile to move");
     }
 
+    if (sourceCards.size() - numCards < faceDownCounts[srcPile]) {
+      throw new IllegalStateException("Cannot move face-down cards");
+    }
+
     Card movingCard = sourceCards.get(sourceCards.size() - numCards);
 
 
@@ -333,23 +605,33 @@ public class BasicKlondike implements KlondikeModel {
       }
 
       // Ensure cards alternate in color
-      if (movingCard.getColor().equals(topDestCard.getColor())) {
+      if (movingCard.getColor() == topDestCard.getColor()) {
         throw new IllegalStateException("Card being moved must be opposite in color");
       }
     }
+    movePileUnchecked(srcPile, numCards, destPile);
+  }
 
-    // Move the cards
-    List<Card> movingCards = new ArrayList<>(sourceCards.subList(sourceCards.size() -
-            numCards, sourceCards.size()));
-    sourceCards.removeAll(movingCards);
-    destCards.addAll(movingCards);
+  private void movePileUnchecked(int srcPile, int numCards, int destPile) {
+    List<Card> sourceCards = cascade.get(srcPile);
+    List<Card> destCards = cascade.get(destPile);
 
-    // If there's a card left in the source pile, make its top card visible
-    if (!sourceCards.isEmpty()) {
-      KlondikeCard topSourceCard = (KlondikeCard) sourceCards.get(sourceCards.size() - 1);
-      topSourceCard.setVisible(true);
+    // Move the cards
+    indexPileTop(srcPile, -1);
+    indexPileTop(destPile, -1);
+    int from = sourceCards.size() - numCards;
+    for (int i = 0; i < numCards; i++) {
+      Card card = sourceCards.get(from + i);
+      positionHash ^= Zobrist.key(card, Zobrist.CASCADE, srcPile, from + i, true)
+              ^ Zobrist.key(card, Zobrist.CASCADE, destPile, destCards.size() + i, true);
     }
+    moveTail(sourceCards, numCards, destCards);
 
+    // If there's a card left in the source pile, make its top card visible
+    boolean flipped = revealTopCard(srcPile);
+    indexPileTop(srcPile, 1);
+    indexPileTop(destPile, 1);
+    journal(Moves.PILE, srcPile, destPile, numCards, flipped);
   }
 
   /**
@@ -376,6 +658,9 @@ public class BasicKlondike implements KlondikeModel {
         throw new IllegalStateException("No draw cards available");
       }
       drawFromDeck();
+      if (drawPile.isEmpty()) {
+        throw new IllegalStateException("No draw cards available");
+      }
     }
 
     //to get the first card of the draw pile
@@ -392,38 +677,175 @@ public class BasicKlondike implements KlondikeModel {
         throw new IllegalStateException("Invalid move to cascade: Tried to move " +
                 topDrawCard + " on top of " + topDestCard);
       }
-      // If valid, move the card
+    }
+    moveDrawUnchecked(destPile);
+  }
+
+  private void moveDrawUnchecked(int destPile) {
+    Card topDrawCard = drawPile.get(0);
+    if (destPile < numPiles) {
+      List<Card> destCards = cascade.get(destPile);
+      indexDrawTop(-1);
+      indexPileTop(destPile, -1);
+      positionHash ^= Zobrist.key(topDrawCard, Zobrist.CASCADE, destPile, destCards.size(),
+              true);
       destCards.add(topDrawCard);
+      moveIndex.faceUpCard(topDrawCard, 1);
+      indexPileTop(destPile, 1);
     } else {
       List<Card> foundationPile = foundations.get(destPile - numPiles);
 
       // Simply move the card to the foundation pile without any checks
+      indexDrawTop(-1);
+      positionHash ^= Zobrist.key(topDrawCard, Zobrist.FOUNDATION, destPile - numPiles,
+              foundationPile.size(), true);
       foundationPile.add(topDrawCard);
     }
 
     // Remove the card from draw pile
-    drawPile.remove(topDrawCard);
+    hashDrawCards();
+    drawPile.remove(0);
+    hashDrawCards();
 
     // If draw pile is empty after removing, refill from restOfDeck if any cards are left
+    int refilled = 0;
     if (drawPile.isEmpty() && !restOfDeck.isEmpty()) {
-      drawFromDeck();
-    } else if (!drawPile.isEmpty()) {
-      KlondikeCard nextDrawCard = (KlondikeCard) drawPile.get(0);
-      nextDrawCard.setVisible(true);
+      refilled = drawFromDeck();
     }
+    indexDrawTop(1);
+    journal(Moves.DRAW, 0, destPile, refilled, false);
   }
 
 
-  private void drawFromDeck() {
+  // Moves the top cards of one pile onto another, in order. Cards are taken by position,
+  // never by comparing them, as a pile can hold other copies of the moving cards.
+  private static void moveTail(List<Card> from, int count, List<Card> to) {
+    if (from instanceof CardPile && to instanceof CardPile) {
+      ((CardPile) from).moveTailTo((CardPile) to, count);
+      return;
+    }
+    List<Card> moving = from.subList(from.size() - count, from.size());
+    to.addAll(moving);
+    moving.clear();
+  }
+
+  // returns the number of cards drawn
+  private int drawFromDeck() {
     // Clear the current draw pile
     drawPile.clear();
     // Move the next 'numDraw' cards from restOfDeck to drawPile
-    for (int i = 0; i < Math.min(numDraw, restOfDeck.size()); i++) {
-      KlondikeCard card = (KlondikeCard) restOfDeck.get(0);
-      card.setVisible(true);
+    int cardsToDraw = Math.min(numDraw, restOfDeck.size());
+    for (int i = 0; i < cardsToDraw; i++) {
+      Card card = restOfDeck.get(0);
+      positionHash ^= Zobrist.key(card, Zobrist.STOCK, 0, restOfDeck.size() - 1, false);
       drawPile.add(card);
       restOfDeck.remove(0);
     }
+    hashDrawCards();
+    return cardsToDraw;
+  }
+
+  // Turns the top card of the given cascade pile face-up, if it is face-down; returns
+  // whether it was
+  private boolean revealTopCard(int pileNum) {
+    List<Card> pile = cascade.get(pileNum);
+    int size = pile.size();
+    if (size > 0 && faceDownCounts[pileNum] >= size) {
+      faceDownCounts[pileNum] = size - 1;
+      Card card = pile.get(size - 1);
+      moveIndex.faceUpCard(card, 1);
+      positionHash ^= Zobrist.key(card, Zobrist.CASCADE, pileNum, size - 1, false)
+              ^ Zobrist.key(card, Zobrist.CASCADE, pileNum, size - 1, true);
+      return true;
+    }
+    return false;
+  }
+
+  // Turns the top card of the given cascade pile face-down again, undoing revealTopCard
+  private void hideTopCard(int pileNum) {
+    List<Card> pile = cascade.get(pileNum);
+    int size = pile.size();
+    Card card = pile.get(size - 1);
+    faceDownCounts[pileNum] = size;
+    moveIndex.faceUpCard(card, -1);
+    positionHash ^= Zobrist.key(card, Zobrist.CASCADE, pileNum, size - 1, true)
+            ^ Zobrist.key(card, Zobrist.CASCADE, pileNum, size - 1, false);
+  }
+
+  // Puts the given number of draw cards, which were all drawn from the stock at once, back
+  // on top of the stock, undoing drawFromDeck
+  private void returnToDeck(int count) {
+    if (count == 0) {
+      return;
+    }
+    hashDrawCards();
+    for (int i = count - 1; i >= 0; i--) {
+      Card card = drawPile.get(i);
+      restOfDeck.add(0, card);
+      positionHash ^= Zobrist.key(card, Zobrist.STOCK, 0, restOfDeck.size() - 1, false);
+    }
+    drawPile.clear();
+    hashDrawCards();
+  }
+
+  // XORs the keys of the draw cards into the position hash; call once before and once
+  // after changing the draw cards
+  private void hashDrawCards() {
+    for (int i = 0; i < drawPile.size(); i++) {
+      positionHash ^= Zobrist.key(drawPile.get(i), Zobrist.DRAW, 0, i, true);
+    }
+  }
+
+  // Hashes the whole state from scratch. The stock is keyed by distance from its bottom,
+  // which stays the same as cards are drawn from the top.
+  private long computePositionHash() {
+    long hash = 0;
+    for (int pileNum = 0; pileNum < cascade.size(); pileNum++) {
+      List<Card> pile = cascade.get(pileNum);
+      for (int row = 0; row < pile.size(); row++) {
+        hash ^= Zobrist.key(pile.get(row), Zobrist.CASCADE, pileNum, row,
+                row >= faceDownCounts[pileNum]);
+      }
+    }
+    for (int f = 0; f < foundations.size(); f++) {
+      List<Card> pile = foundations.get(f);
+      for (int row = 0; row < pile.size(); row++) {
+        hash ^= Zobrist.key(pile.get(row), Zobrist.FOUNDATION, f, row, true);
+      }
+    }
+    for (int i = 0; i < drawPile.size(); i++) {
+      hash ^= Zobrist.key(drawPile.get(i), Zobrist.DRAW, 0, i, true);
+    }
+    for (int i = 0; i < restOfDeck.size(); i++) {
+      hash ^= Zobrist.key(restOfDeck.get(i), Zobrist.STOCK, 0, restOfDeck.size() - 1 - i,
+              false);
+    }
+    return hash;
+  }
+
+  // The index helpers below are called for every pile a move touches, before and after
+  // it changes, so they also stamp the pile with a new version.
+
+  // Adds (+1) or removes (-1) the top of the given cascade pile in the move index
+  private void indexPileTop(int pileNum, int delta) {
+    pileVersions[pileNum] = ++version;
+    List<Card> pile = cascade.get(pileNum);
+    moveIndex.pileTop(pile.isEmpty() ? null : pile.get(pile.size() - 1), delta);
+  }
+
+  // Adds (+1) or removes (-1) the top of the given foundation pile in the move index
+  private void indexFoundationTop(int foundationPile, int delta) {
+    foundationVersions[foundationPile] = ++version;
+    List<Card> pile = foundations.get(foundationPile);
+    moveIndex.foundationTop(pile.isEmpty() ? null : pile.get(pile.size() - 1), delta);
+  }
+
+  // Adds (+1) or removes (-1) the top draw card, if any, in the move index
+  private void indexDrawTop(int delta) {
+    drawVersion = ++version;
+    if (!drawPile.isEmpty()) {
+      moveIndex.drawTop(drawPile.get(0), delta);
+    }
   }
 
 
@@ -442,26 +864,20 @@ public class BasicKlondike implements KlondikeModel {
     // If there is a card in the destination pile,
     // check if movingCard rank is one less than the top card and their colors are different
     return movingCard.getRankValue() + 1 == topDestCard.getRankValue()
-            && !movingCard.getColor().equals(topDestCard.getColor());
+            && movingCard.getColor() != topDestCard.getColor();
   }
 
   /**
    * Returns the maximum rank value in the deck.
    */
   private int getMaxRankValue() {
-    int maxRank = 0;
-    for (Card card : deck) {
-      if (card.getRankValue() > maxRank) {
-        maxRank = card.getRankValue();
-      }
-    }
-    return maxRank;
+    return profile.getMaxRank();
   }
 
   private boolean isValidMoveToFoundation(Card movingCard, Card topDestCard) {
     // If there's no card in the destination pile, return false
     if (topDestCard == null) {
-      return movingCard.getRank().equals("A");
+      return movingCard.getRank() == Rank.ACE;
     }
     // If there is a card in the destination pile,
     // check if movingCard rank is one value more than the top card in foundation piles
@@ -474,13 +890,7 @@ public class BasicKlondike implements KlondikeModel {
   }
 
   private int numberOfAcesInDeck() {
-    int count = 0;
-    for (Card card : deck) {
-      if (card.getRank().equals("A")) {
-        count++;
-      }
-    }
-    return count;
+    return profile.getNumAces();
   }
 
   /**
@@ -524,17 +934,31 @@ public class BasicKlondike implements KlondikeModel {
     if (!isValidMoveToFoundation(topSourceCard, topFoundationCard)) {
       throw new IllegalStateException("Invalid move to foundation");
     }
+    moveToFoundationUnchecked(srcPile, foundationPile);
+  }
+
+  private void moveToFoundationUnchecked(int srcPile, int foundationPile) {
+    List<Card> sourceCards = cascade.get(srcPile);
+    Card topSourceCard = sourceCards.get(sourceCards.size() - 1);
+    List<Card> foundationCards = foundations.get(foundationPile);
 
     // Move the card
+    indexPileTop(srcPile, -1);
+    indexFoundationTop(foundationPile, -1);
+    moveIndex.faceUpCard(topSourceCard, -1);
+    positionHash ^= Zobrist.key(topSourceCard, Zobrist.CASCADE, srcPile,
+            sourceCards.size() - 1, true)
+            ^ Zobrist.key(topSourceCard, Zobrist.FOUNDATION, foundationPile,
+            foundationCards.size(), true);
     foundationCards.add(topSourceCard);
     sourceCards.remove(sourceCards.size() - 1);
 
     // If another card in the source pile after removing the top one,
     // make it visible
-    if (!sourceCards.isEmpty()) {
-      KlondikeCard nextTopCard = (KlondikeCard) sourceCards.get(sourceCards.size() - 1);
-      nextTopCard.setVisible(true);
-    }
+    boolean flipped = revealTopCard(srcPile);
+    indexPileTop(srcPile, 1);
+    indexFoundationTop(foundationPile, 1);
+    journal(Moves.PILE_TO_FOUNDATION, srcPile, foundationPile, 1, flipped);
   }
 
 
@@ -565,6 +989,9 @@ public class BasicKlondike implements KlondikeModel {
         throw new IllegalStateException("No draw cards available");
       }
       drawFromDeck();
+      if (drawPile.isEmpty()) {
+        throw new IllegalStateException("No draw cards available");
+      }
     }
 
     // Get the topmost draw card
@@ -579,18 +1006,31 @@ public class BasicKlondike implements KlondikeModel {
     if (!isValidMoveToFoundation(topDrawCard, topFoundationCard)) {
       throw new IllegalStateException("Invalid move to foundation");
     }
+    moveDrawToFoundationUnchecked(foundationPile);
+  }
+
+  private void moveDrawToFoundationUnchecked(int foundationPile) {
+    Card topDrawCard = drawPile.get(0);
+    List<Card> foundationCards = foundations.get(foundationPile);
 
     // Move the card
+    indexDrawTop(-1);
+    indexFoundationTop(foundationPile, -1);
+    positionHash ^= Zobrist.key(topDrawCard, Zobrist.FOUNDATION, foundationPile,
+            foundationCards.size(), true);
     foundationCards.add(topDrawCard);
+    hashDrawCards();
     drawPile.remove(0);
+    hashDrawCards();
 
     // If draw pile is empty after removing, refill from restOfDeck if any cards are left
+    int refilled = 0;
     if (drawPile.isEmpty() && !restOfDeck.isEmpty()) {
-      drawFromDeck();
-    } else if (!drawPile.isEmpty()) {
-      KlondikeCard nextDrawCard = (KlondikeCard) drawPile.get(0);
-      nextDrawCard.setVisible(true);
+      refilled = drawFromDeck();
     }
+    indexFoundationTop(foundationPile, 1);
+    indexDrawTop(1);
+    journal(Moves.DRAW_TO_FOUNDATION, 0, foundationPile, refilled, false);
   }
 
 
@@ -609,16 +1049,263 @@ public class BasicKlondike implements KlondikeModel {
     if (drawPile.isEmpty()) {
       throw new IllegalStateException("No draw cards available to discard");
     }
+    discardDrawUnchecked();
+  }
 
+  private void discardDrawUnchecked() {
     // Move the topmost draw card to the bottom of the drawPile
+    indexDrawTop(-1);
+    hashDrawCards();
     Card discardedCard = drawPile.remove(0);
     drawPile.add(discardedCard);
+    hashDrawCards();
+    indexDrawTop(1);
+    journal(Moves.DISCARD, 0, 0, 0, false);
+  }
+
+  /**
+   * Takes back the last move made (and not already taken back), including any card it
+   * turned face-up and any draw cards it dealt from the stock. Only the cards the move
+   * touched are moved back, so this takes time in proportion to them, not to the game.
+   *
+   * @throws IllegalStateException if the game hasn't been started yet, or no move has
+   *                               been made since it started
+   */
+  public void undo() throws IllegalStateException {
+    ensureGameStarted();
+    if (journalSize == 0) {
+      throw new IllegalStateException("No move to undo");
+    }
+    long record = journal[--journalSize];
+    int src = journalSource(record);
+    int dest = journalDestination(record);
+    int count = journalCount(record);
+    switch (journalKind(record)) {
+      case Moves.PILE:
+        undoPile(src, count, dest, journalFlipped(record));
+        break;
+      case Moves.DRAW:
+        undoDraw(dest, count);
+        break;
+      case Moves.PILE_TO_FOUNDATION:
+        undoToFoundation(src, dest, journalFlipped(record));
+        break;
+      case Moves.DRAW_TO_FOUNDATION:
+        undoDrawToFoundation(dest, count);
+        break;
+      default:
+        undoDiscard();
+        break;
+    }
+    if (events != null) {
+      events.publish(KlondikeEvents.UNDO, src, dest, count,
+              (byte) journalKind(record));
+      if (journalFlipped(record)) {
+        // the hidden card is back under the cards the undo returned to its pile
+        List<Card> pile = cascade.get(src);
+        int row = pile.size() - count - 1;
+        events.publish(KlondikeEvents.HIDE, src, 0, row, PackedCard.pack(pile.get(row)));
+      }
+    }
+  }
 
-    // Update visibility of the next numDraw cards
-    for (int i = 0; i < Math.min(numDraw, drawPile.size()); i++) {
-      KlondikeCard card = (KlondikeCard) drawPile.get(i);
-      card.setVisible(true);
+  /**
+   * Makes again the last move taken back by {@link #undo()}. Making any other move
+   * forgets the moves that could be redone.
+   *
+   * @throws IllegalStateException if the game hasn't been started yet, or there is no
+   *                               move to redo
+   */
+  public void redo() throws IllegalStateException {
+    ensureGameStarted();
+    if (journalSize == journalEnd) {
+      throw new IllegalStateException("No move to redo");
+    }
+    int end = journalEnd;
+    long record = journal[journalSize];
+    int dest = journalDestination(record);
+    switch (journalKind(record)) {
+      case Moves.PILE:
+        movePile(journalSource(record), journalCount(record), dest);
+        break;
+      case Moves.DRAW:
+        moveDraw(dest);
+        break;
+      case Moves.PILE_TO_FOUNDATION:
+        moveToFoundation(journalSource(record), dest);
+        break;
+      case Moves.DRAW_TO_FOUNDATION:
+        moveDrawToFoundation(dest);
+        break;
+      default:
+        discardDraw();
+        break;
     }
+    // the move rewrote its own record; the moves after it can still be redone
+    journalEnd = end;
+  }
+
+  /**
+   * Checks if there is a move that {@link #undo()} can take back.
+   *
+   * @return true if a move has been made and not taken back
+   * @throws IllegalStateException if the game hasn't been started yet
+   */
+  public boolean canUndo() throws IllegalStateException {
+    ensureGameStarted();
+    return journalSize > 0;
+  }
+
+  /**
+   * Checks if there is a move that {@link #redo()} can make again.
+   *
+   * @return true if a move has been taken back and nothing else made since
+   * @throws IllegalStateException if the game hasn't been started yet
+   */
+  public boolean canRedo() throws IllegalStateException {
+    ensureGameStarted();
+    return journalSize < journalEnd;
+  }
+
+  // A journal record packs, from the high bits down: the move kind (3 bits, as in Moves),
+  // whether the move turned a cascade card face-up (1 bit), the source pile (20 bits),
+  // the destination pile (20 bits), and (20 bits) the number of cards moved for a pile
+  // move or the number of cards dealt from the stock for a draw move.
+  private void journal(int kind, int src, int dest, int count, boolean flipped) {
+    if (journalSize == journal.length) {
+      long[] grown = new long[Math.max(64, journal.length * 2)];
+      System.arraycopy(journal, 0, grown, 0, journalSize);
+      journal = grown;
+    }
+    journal[journalSize++] = (long) kind << 61 | (flipped ? 1L << 60 : 0)
+            | (long) src << 40 | (long) dest << 20 | count;
+    journalEnd = journalSize;
+    if (events != null) {
+      publishMove(kind, src, dest, count, flipped);
+    }
+  }
+
+  // Publishes a move just made, with the same fields as its journal record, and the card
+  // it turned face-up, if any
+  private void publishMove(int kind, int src, int dest, int count, boolean flipped) {
+    Card card;
+    switch (kind) {
+      case Moves.PILE:
+        List<Card> destCards = cascade.get(dest);
+        card = destCards.get(destCards.size() - count);
+        break;
+      case Moves.DRAW:
+        card = topCard(cascade.get(dest));
+        break;
+      case Moves.PILE_TO_FOUNDATION:
+      case Moves.DRAW_TO_FOUNDATION:
+        card = topCard(foundations.get(dest));
+        break;
+      default:
+        card = topCard(drawPile);
+        break;
+    }
+    events.publish(kind, src, dest, count, PackedCard.pack(card));
+    if (flipped) {
+      List<Card> pile = cascade.get(src);
+      events.publish(KlondikeEvents.REVEAL, src, 0, pile.size() - 1,
+              PackedCard.pack(topCard(pile)));
+    }
+  }
+
+  private static int journalKind(long record) {
+    return (int) (record >>> 61);
+  }
+
+  private static boolean journalFlipped(long record) {
+    return (record & 1L << 60) != 0;
+  }
+
+  private static int journalSource(long record) {
+    return (int) (record >>> 40) & 0xFFFFF;
+  }
+
+  private static int journalDestination(long record) {
+    return (int) (record >>> 20) & 0xFFFFF;
+  }
+
+  private static int journalCount(long record) {
+    return (int) record & 0xFFFFF;
+  }
+
+  private void undoPile(int srcPile, int numCards, int destPile, boolean flipped) {
+    List<Card> sourceCards = cascade.get(srcPile);
+    List<Card> destCards = cascade.get(destPile);
+    indexPileTop(srcPile, -1);
+    indexPileTop(destPile, -1);
+    if (flipped) {
+      hideTopCard(srcPile);
+    }
+    int from = destCards.size() - numCards;
+    for (int i = 0; i < numCards; i++) {
+      Card card = destCards.get(from + i);
+      positionHash ^= Zobrist.key(card, Zobrist.CASCADE, destPile, from + i, true)
+              ^ Zobrist.key(card, Zobrist.CASCADE, srcPile, sourceCards.size() + i, true);
+    }
+    moveTail(destCards, numCards, sourceCards);
+    indexPileTop(srcPile, 1);
+    indexPileTop(destPile, 1);
+  }
+
+  private void undoToFoundation(int srcPile, int foundationPile, boolean flipped) {
+    List<Card> sourceCards = cascade.get(srcPile);
+    List<Card> foundationCards = foundations.get(foundationPile);
+    indexPileTop(srcPile, -1);
+    indexFoundationTop(foundationPile, -1);
+    if (flipped) {
+      hideTopCard(srcPile);
+    }
+    Card card = foundationCards.remove(foundationCards.size() - 1);
+    positionHash ^= Zobrist.key(card, Zobrist.FOUNDATION, foundationPile,
+            foundationCards.size(), true)
+            ^ Zobrist.key(card, Zobrist.CASCADE, srcPile, sourceCards.size(), true);
+    sourceCards.add(card);
+    moveIndex.faceUpCard(card, 1);
+    indexPileTop(srcPile, 1);
+    indexFoundationTop(foundationPile, 1);
+  }
+
+  private void undoDraw(int destPile, int refilled) {
+    List<Card> destCards = cascade.get(destPile);
+    indexDrawTop(-1);
+    indexPileTop(destPile, -1);
+    returnToDeck(refilled);
+    Card card = destCards.remove(destCards.size() - 1);
+    positionHash ^= Zobrist.key(card, Zobrist.CASCADE, destPile, destCards.size(), true);
+    moveIndex.faceUpCard(card, -1);
+    hashDrawCards();
+    drawPile.add(0, card);
+    hashDrawCards();
+    indexPileTop(destPile, 1);
+    indexDrawTop(1);
+  }
+
+  private void undoDrawToFoundation(int foundationPile, int refilled) {
+    List<Card> foundationCards = foundations.get(foundationPile);
+    indexDrawTop(-1);
+    indexFoundationTop(foundationPile, -1);
+    returnToDeck(refilled);
+    Card card = foundationCards.remove(foundationCards.size() - 1);
+    positionHash ^= Zobrist.key(card, Zobrist.FOUNDATION, foundationPile,
+            foundationCards.size(), true);
+    hashDrawCards();
+    drawPile.add(0, card);
+    hashDrawCards();
+    indexFoundationTop(foundationPile, 1);
+    indexDrawTop(1);
+  }
+
+  private void undoDiscard() {
+    indexDrawTop(-1);
+    hashDrawCards();
+    drawPile.add(0, drawPile.remove(drawPile.size() - 1));
+    hashDrawCards();
+    indexDrawTop(1);
   }
 
   /**
@@ -688,50 +1375,201 @@ public class BasicKlondike implements KlondikeModel {
     // Check if the game has started
     ensureGameStarted();
 
-    // Check if there are no more draw cards to be used or discarded
-    if (drawPile.isEmpty()) {
-      return true;
+    return countLegalMoves() == 0;
+  }
+
+  /**
+   * Returns the number of moves that can be made right now: every legal
+   * {@link #movePile}, {@link #moveDraw}, {@link #moveToFoundation} and
+   * {@link #moveDrawToFoundation}, plus one for {@link #discardDraw} if there are draw cards.
+   * The count is kept up to date by every move, so this takes constant time.
+   *
+   * @return the number of legal moves
+   * @throws IllegalStateException if the game hasn't been started yet
+   */
+  public int countLegalMoves() throws IllegalStateException {
+    ensureGameStarted();
+
+    return moveIndex.count() + (drawPile.isEmpty() ? 0 : 1);
+  }
+
+  /**
+   * Returns a 64-bit hash of the whole state of the game: where every card is, and
+   * whether it is face-up. Equal states always have equal hashes, in any game and any
+   * JVM, and the hash is kept up to date by every move, so reading it takes constant time.
+   *
+   * @return the position hash
+   * @throws IllegalStateException if the game hasn't been started yet
+   */
+  public long positionHash() throws IllegalStateException {
+    ensureGameStarted();
+    return positionHash;
+  }
+
+  /**
+   * Returns the version of the game, a number that grows with every move and every undo.
+   * Comparing it with the versions of the piles tells what changed since it was read: a
+   * pile has changed since version {@code v} if and only if its version is greater than
+   * {@code v}. Versions are only ever compared within one game and its copies.
+   *
+   * @return the current version
+   * @throws IllegalStateException if the game hasn't been started yet
+   */
+  public long getVersion() throws IllegalStateException {
+    ensureGameStarted();
+    return version;
+  }
+
+  /**
+   * Returns the version of the last change to the given cascade pile: a card added,
+   * removed or turned face-up.
+   *
+   * @param pileNum the 0-based index (from the left) of the pile
+   * @return the version of the pile
+   * @throws IllegalStateException    if the game hasn't been started yet
+   * @throws IllegalArgumentException if the pile number is invalid
+   */
+  public long getPileVersion(int pileNum) throws IllegalStateException {
+    ensureGameStarted();
+    if (pileNum < 0 || pileNum >= numPiles) {
+      throw new IllegalArgumentException("Invalid pile number");
     }
+    return pileVersions[pileNum];
+  }
 
-    // Check for any possible moves among the cascade piles
-    for (int i = 0; i < cascade.size(); i++) {
-      List<Card> currentPile = cascade.get(i);
-      if (currentPile.isEmpty()) {
-        continue;
-      }
+  /**
+   * Returns the version of the last change to the given foundation pile.
+   *
+   * @param foundationPile the 0-based index (from the left) of the foundation pile
+   * @return the version of the foundation pile
+   * @throws IllegalStateException    if the game hasn't been started yet
+   * @throws IllegalArgumentException if the foundation pile number is invalid
+   */
+  public long getFoundationVersion(int foundationPile) throws IllegalStateException {
+    ensureGameStarted();
+    if (foundationPile < 0 || foundationPile >= foundationVersions.length) {
+      throw new IllegalArgumentException("Invalid foundation pile number");
+    }
+    return foundationVersions[foundationPile];
+  }
 
-      Card topCard = currentPile.get(currentPile.size() - 1);
+  /**
+   * Returns the version of the last change to the draw cards or the stock.
+   *
+   * @return the version of the draw cards
+   * @throws IllegalStateException if the game hasn't been started yet
+   */
+  public long getDrawVersion() throws IllegalStateException {
+    ensureGameStarted();
+    return drawVersion;
+  }
 
-      // Check for possible moves to other cascade piles or foundation piles
-      for (int j = 0; j < cascade.size(); j++) {
-        if (i == j) {
-          continue;
+  /**
+   * Fills the given array with every move that can be made right now, encoded with
+   * {@link Moves}: moves to the foundations first, then moves between cascade piles, then
+   * draw moves, and finally the discard. Nothing is allocated, so search code can call this
+   * on every position it visits. The array needs room for {@link #countLegalMoves()} moves.
+   *
+   * @param moves the array to fill from index 0
+   * @return the number of moves written
+   * @throws IllegalStateException    if the game hasn't been started yet
+   * @throws IllegalArgumentException if the array is null or too small
+   */
+  public int generateMoves(int[] moves) throws IllegalStateException {
+    if (moves == null || moves.length < countLegalMoves()) {
+      throw new IllegalArgumentException("Move array is too small for the legal moves");
+    }
+    int count = 0;
+    int numFoundations = foundations.size();
+
+    for (int src = 0; src < numPiles; src++) {
+      List<Card> pile = cascade.get(src);
+      if (pile.isEmpty()) {
+        continue;
+      }
+      Card topCard = pile.get(pile.size() - 1);
+      for (int f = 0; f < numFoundations; f++) {
+        if (isValidMoveToFoundation(topCard, topCard(foundations.get(f)))) {
+          moves[count++] = Moves.moveToFoundation(src, f);
         }
+      }
+    }
 
-        List<Card> targetPile = cascade.get(j);
-        // There's a move to an empty cascade pile with a King.
-        if (targetPile.isEmpty() && topCard.getRankValue() == getMaxRankValue()) {
-          return false;
-          // There's a valid move to another cascade pile.
-        } else if (!targetPile.isEmpty() && isValidMoveToCascade(topCard,
-                targetPile.get(targetPile.size() - 1))) {
-          return false;
+    for (int src = 0; src < numPiles; src++) {
+      List<Card> pile = cascade.get(src);
+      // any face-up card can lead the run above it onto another pile
+      for (int i = faceDownCounts[src]; i < pile.size(); i++) {
+        Card movingCard = pile.get(i);
+        for (int dest = 0; dest < numPiles; dest++) {
+          if (dest != src && isValidMoveToCascade(movingCard, topCard(cascade.get(dest)))) {
+            moves[count++] = Moves.movePile(src, pile.size() - i, dest);
+          }
         }
       }
+    }
 
-      // If possible moves to foundation piles
-      for (List<Card> foundationPile : foundations) {
-        //There's a move to an empty foundation pile with an Ace.
-        if (foundationPile.isEmpty() && topCard.getRank().equals("A")) {
-          return false;
-          // There's a valid move to a foundation pile.
-        } else if (!foundationPile.isEmpty() && isValidMoveToFoundation(topCard,
-                foundationPile.get(foundationPile.size() - 1))) {
-          return false;
+    if (!drawPile.isEmpty()) {
+      Card topDrawCard = drawPile.get(0);
+      for (int f = 0; f < numFoundations; f++) {
+        if (isValidMoveToFoundation(topDrawCard, topCard(foundations.get(f)))) {
+          moves[count++] = Moves.moveDrawToFoundation(f);
+        }
+      }
+      for (int dest = 0; dest < numPiles; dest++) {
+        if (isValidMoveToCascade(topDrawCard, topCard(cascade.get(dest)))) {
+          moves[count++] = Moves.moveDraw(dest);
         }
       }
+      moves[count++] = Moves.discardDraw();
+    }
+    return count;
+  }
+
+  // Returns the top card of the given pile, or null if it is empty
+  private static Card topCard(List<Card> pile) {
+    return pile.isEmpty() ? null : pile.get(pile.size() - 1);
+  }
+
+  /**
+   * Makes a move encoded with {@link Moves}, as produced by {@link #generateMoves(int[])}.
+   * The move goes through the same checks as the matching move method.
+   *
+   * @param move the encoded move
+   * @throws IllegalStateException    if the game hasn't been started yet, or the move is
+   *                                  not allowable
+   * @throws IllegalArgumentException if the move is not a valid encoding or its pile
+   *                                  numbers are invalid
+   */
+  public void apply(int move) throws IllegalStateException {
+    Moves.apply(this, move);
+  }
+
+  /**
+   * Makes a move encoded with {@link Moves} without any of the checks of the move methods,
+   * for moves known to be allowable, such as moves replayed from a trusted log. The move
+   * is journaled and can be undone as usual. A move that is not allowable leaves the game
+   * in an undefined state.
+   *
+   * @param move the encoded move, allowable in the current state
+   */
+  void applyTrusted(int move) {
+    switch (Moves.kind(move)) {
+      case Moves.PILE:
+        movePileUnchecked(Moves.source(move), Moves.count(move), Moves.destination(move));
+        break;
+      case Moves.DRAW:
+        moveDrawUnchecked(Moves.destination(move));
+        break;
+      case Moves.PILE_TO_FOUNDATION:
+        moveToFoundationUnchecked(Moves.source(move), Moves.destination(move));
+        break;
+      case Moves.DRAW_TO_FOUNDATION:
+        moveDrawToFoundationUnchecked(Moves.destination(move));
+        break;
+      default:
+        discardDrawUnchecked();
+        break;
     }
-    return true;
   }
 
   /**
@@ -812,9 +1650,8 @@ public class BasicKlondike implements KlondikeModel {
       throw new IllegalArgumentException("Invalid card index");
     }
 
-    // Retrieve the card at the specified position and return its visibility status
-    Card selectedCard = cascade.get(pileNum).get(card);
-    return selectedCard.isVisible();
+    // Every card above the face-down ones is visible
+    return card >= faceDownCounts[pileNum];
   }
 
 
@@ -852,8 +1689,8 @@ public class BasicKlondike implements KlondikeModel {
       throw new IllegalArgumentException("Card index out of bounds for the given pile");
     }
 
-    // Check if the card is visible using the isCardVisible method
-    if (!isCardVisible(pileNum, card)) {
+    // Check if the card is visible
+    if (card < faceDownCounts[pileNum]) {
       // Return null if the card is not visible
       return null;
     }
@@ -863,6 +1700,50 @@ public class BasicKlondike implements KlondikeModel {
   }
 
 
+  /**
+   * Returns the card at the specified coordinates, whether it is face-up or not.
+   * This is meant for tools that need the full state of a game, such as solvers;
+   * players should use {@link #getCardAt(int, int)}.
+   *
+   * @param pileNum column of the desired card (0-indexed from the left)
+   * @param card    row of the desired card (0-indexed from the top)
+   * @return the card at the given position
+   * @throws IllegalStateException    if the game hasn't been started yet
+   * @throws IllegalArgumentException if the coordinates are invalid
+   */
+  public Card peekCardAt(int pileNum, int card) throws IllegalStateException {
+    ensureGameStarted();
+    if (pileNum < 0 || pileNum >= numPiles) {
+      throw new IllegalArgumentException("Invalid pile number");
+    }
+    List<Card> selectedPile = cascade.get(pileNum);
+    if (card < 0 || card >= selectedPile.size()) {
+      throw new IllegalArgumentException("Card index out of bounds for the given pile");
+    }
+    return selectedPile.get(card);
+  }
+
+  /**
+   * Returns the face-down cards of the stock that will be drawn once the current draw
+   * cards are used up, in the order they will be drawn. Like {@link #peekCardAt}, this is
+   * meant for tools that need the full state of a game.
+   *
+   * @return an unmodifiable view of the rest of the stock
+   * @throws IllegalStateException if the game hasn't been started yet
+   */
+  public List<Card> getStockCards() throws IllegalStateException {
+    ensureGameStarted();
+    return readOnly(restOfDeck);
+  }
+
+  // a read-only view of a pile; piles of this class keep theirs, so asking again is free
+  private static List<Card> readOnly(List<Card> pile) {
+    if (pile instanceof CardPile) {
+      return ((CardPile) pile).view();
+    }
+    return Collections.unmodifiableList(pile);
+  }
+
   /**
    * Returns the card at the top of the specified foundation pile.
    * returns the card at the given coordinates, if it is visible.
@@ -891,15 +1772,8 @@ public class BasicKlondike implements KlondikeModel {
       return null;
     }
 
-    Card topCard = selectedFoundation.get(selectedFoundation.size() - 1);
-
-    // Check if the card is visible
-    if (topCard.isVisible()) {
-      return topCard;
-    }
-
-    // If the card is not visible, return null
-    return null;
+    // Foundation cards are always face-up
+    return selectedFoundation.get(selectedFoundation.size() - 1);
   }
 
   /**
@@ -933,8 +1807,8 @@ public class BasicKlondike implements KlondikeModel {
     if (drawPile == null) {
       throw new IllegalStateException("Draw pile is not initialized.");
     }
-    // Return all cards from the draw pile
-    return Collections.unmodifiableList(drawPile);
+    // Return all cards from the draw pile, as a live view that is not copied per call
+    return readOnly(drawPile);
   }
 
   /**
@@ -954,6 +1828,18 @@ public class BasicKlondike implements KlondikeModel {
   }
 
 
+  /**
+   * Returns the rule facts of the dealt deck, computed once when the game started.
+   *
+   * @return the profile of the dealt deck
+   * @throws IllegalStateException if the game hasn't been started yet
+   */
+  @Override
+  public DeckProfile getDeckProfile() throws IllegalStateException {
+    ensureGameStarted();
+    return profile;
+  }
+
   private void ensureGameStarted() {
     if (!isGameStarted || this.deck == null || this.deck.isEmpty()) {
       throw new IllegalStateException("Game hasn't been started yet");
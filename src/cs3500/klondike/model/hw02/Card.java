@@ -23,13 +23,11 @@ public interface Card {
    */
   String toString();
 
-  String getColor();
+  Color getColor();
 
   int getRankValue();
 
-  String getRank();
+  Rank getRank();
 
   KlondikeCard.Suits getSuit();
-
-  boolean isVisible();
 }
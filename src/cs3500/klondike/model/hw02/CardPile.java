@@ -0,0 +1,209 @@
+package cs3500.klondike.model.hw02;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * A pile of cards backed by an array that can be shared between copies of a game.
+ *
+ * <p>{@link #share()} makes a second pile over the same array in constant time. The array
+ * is never written while it is shared: whichever pile changes first takes its own copy of
+ * the array, so both piles always see their own cards. Cards themselves are immutable, so
+ * nothing else needs copying.
+ *
+ * <p>The cards start at a moving head rather than at the start of the array, so the pile
+ * also works as a deque: taking the first card only moves the head, and putting a card
+ * back in front of it moves the head back. Adding at the end slides the cards back to the
+ * start of the array when they reach its end, which the array is kept at least twice as
+ * long as the pile to make rare. Taking cards from either end never copies a shared
+ * array. This keeps the stock and the draw cards at constant time per card drawn,
+ * discarded or returned.
+ *
+ * <p>Like {@link java.util.ArrayList}, a pile is not safe for use by several threads at
+ * once, but piles shared from each other can each be used by their own thread.
+ */
+final class CardPile extends AbstractList<Card> implements RandomAccess {
+  private static final Card[] EMPTY = new Card[0];
+
+  private Card[] cards = EMPTY;
+  // the index in cards of the first card
+  private int head;
+  private int size;
+  // true if the array may also be used by another pile
+  private boolean shared;
+  // the read-only view, made on first use
+  private List<Card> view;
+
+  /**
+   * a pile with the same cards, sharing this pile's array until either one changes.
+   * @return the new pile
+   */
+  CardPile share() {
+    shared = true;
+    CardPile copy = new CardPile();
+    copy.cards = cards;
+    copy.head = head;
+    copy.size = size;
+    copy.shared = true;
+    return copy;
+  }
+
+  /**
+   * an unmodifiable view of this pile, that always shows its current cards. The same view
+   * is returned every time.
+   * @return the view
+   */
+  List<Card> view() {
+    if (view == null) {
+      view = Collections.unmodifiableList(this);
+    }
+    return view;
+  }
+
+  /**
+   * move the top cards of this pile onto the top of another pile, in the same order, with
+   * one array copy. Taking them off this pile never copies its array, even if shared.
+   * @param dest  the pile to move them to
+   * @param count the number of cards to move
+   * @throws IndexOutOfBoundsException if this pile has fewer cards
+   */
+  void moveTailTo(CardPile dest, int count) {
+    Objects.checkFromIndexSize(size - count, count, size);
+    dest.own(dest.size + count);
+    System.arraycopy(cards, head + size - count, dest.cards, dest.head + dest.size, count);
+    dest.size += count;
+    dest.modCount++;
+    removeRange(size - count, size);
+  }
+
+  @Override
+  public Card get(int index) {
+    Objects.checkIndex(index, size);
+    return cards[head + index];
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public Card set(int index, Card card) {
+    Objects.checkIndex(index, size);
+    own(size);
+    Card old = cards[head + index];
+    cards[head + index] = card;
+    return old;
+  }
+
+  @Override
+  public void add(int index, Card card) {
+    Objects.checkIndex(index, size + 1);
+    if (index == 0 && head > 0 && !shared) {
+      cards[--head] = card;
+    } else {
+      own(size + 1);
+      System.arraycopy(cards, head + index, cards, head + index + 1, size - index);
+      cards[head + index] = card;
+    }
+    size++;
+    modCount++;
+  }
+
+  @Override
+  public boolean addAll(Collection<? extends Card> more) {
+    Object[] added = more.toArray();
+    own(size + added.length);
+    System.arraycopy(added, 0, cards, head + size, added.length);
+    size += added.length;
+    modCount++;
+    return added.length > 0;
+  }
+
+  @Override
+  public Card remove(int index) {
+    Objects.checkIndex(index, size);
+    Card old = cards[head + index];
+    if (index == 0) {
+      if (!shared) {
+        cards[head] = null;
+      }
+      head++;
+    } else if (index == size - 1) {
+      if (!shared) {
+        cards[head + index] = null;
+      }
+    } else {
+      own(size);
+      System.arraycopy(cards, head + index + 1, cards, head + index, size - index - 1);
+      cards[head + size - 1] = null;
+    }
+    size--;
+    if (size == 0 && !shared) {
+      head = 0;
+    }
+    modCount++;
+    return old;
+  }
+
+  @Override
+  protected void removeRange(int from, int to) {
+    if (to < size) {
+      own(size);
+      System.arraycopy(cards, head + to, cards, head + from, size - to);
+    }
+    if (!shared) {
+      Arrays.fill(cards, head + size - (to - from), head + size, null);
+    }
+    size -= to - from;
+    if (size == 0 && !shared) {
+      head = 0;
+    }
+    modCount++;
+  }
+
+  @Override
+  public void clear() {
+    if (shared) {
+      cards = EMPTY;
+      shared = false;
+    } else {
+      Arrays.fill(cards, head, head + size, null);
+    }
+    head = 0;
+    size = 0;
+    modCount++;
+  }
+
+  // make the array this pile's own, with room for at least the given number of cards
+  // from the head
+  private void own(int capacity) {
+    if (!shared && head + capacity <= cards.length) {
+      return;
+    }
+    if (!shared && capacity <= cards.length / 2) {
+      // room enough once the cards slide back to the start of the array
+      System.arraycopy(cards, head, cards, 0, size);
+      Arrays.fill(cards, Math.max(size, head), head + size, null);
+      head = 0;
+      return;
+    }
+    int length = cards.length;
+    if (!shared) {
+      // grow to twice the cards, so that sliding back is rare from now on
+      length = Math.max(8, capacity * 2);
+    } else if (capacity > length) {
+      length = Math.max(capacity, Math.max(8, length * 2));
+    }
+    Card[] owned = new Card[length];
+    System.arraycopy(cards, head, owned, 0, size);
+    cards = owned;
+    head = 0;
+    shared = false;
+  }
+}
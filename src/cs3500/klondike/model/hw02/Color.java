@@ -0,0 +1,16 @@
+package cs3500.klondike.model.hw02;
+
+/**
+ * enum type to represent the 2 colors of the suits.
+ */
+public enum Color {
+  RED, BLACK;
+
+  /**
+   * the other color, which a card must have to be stacked on a cascade of this color.
+   * @return BLACK for RED, and RED for BLACK
+   */
+  public Color opposite() {
+    return this == RED ? BLACK : RED;
+  }
+}
@@ -0,0 +1,77 @@
+package cs3500.klondike.model.hw02;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Turns a deal number into the order of a shuffled deck, the same way on every run, thread
+ * and machine.
+ *
+ * <p>The cards are first put in a fixed order, by suit and then rank, so the deal only
+ * depends on which cards are in the deck and not on the order they were given in. They are
+ * then shuffled by Fisher-Yates with a SplitMix64 generator seeded with the deal number.
+ * Both are written out here rather than taken from {@link java.util.Random} or
+ * {@link java.util.SplittableRandom}, whose algorithms the JDK does not promise to keep,
+ * and the generator lives on the stack, so threads dealing at once never share any state.
+ */
+final class Deals {
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+  private Deals() {
+    // static helpers only
+  }
+
+  /**
+   * a deal number to use when the caller asked for a random order.
+   * @return a random deal number
+   */
+  static long randomDealNumber() {
+    return ThreadLocalRandom.current().nextLong();
+  }
+
+  /**
+   * the cards of the deck, packed with {@link PackedCard}, in the order of the given deal.
+   * The deck itself is not changed.
+   * @param deck       the cards to deal, in any order
+   * @param dealNumber the deal number
+   * @return the packed cards, first card dealt first
+   */
+  static byte[] deal(List<Card> deck, long dealNumber) {
+    // counting sort into the fixed order; a packed card is less than 64
+    int[] counts = new int[64];
+    for (int i = 0; i < deck.size(); i++) {
+      counts[PackedCard.pack(deck.get(i))]++;
+    }
+    byte[] cards = new byte[deck.size()];
+    int next = 0;
+    for (int packed = 0; packed < counts.length; packed++) {
+      for (int n = counts[packed]; n > 0; n--) {
+        cards[next++] = (byte) packed;
+      }
+    }
+
+    long state = dealNumber;
+    for (int i = cards.length - 1; i > 0; i--) {
+      int bound = i + 1;
+      // Lemire's multiply-and-reject, for an unbiased index below bound
+      long threshold = (1L << 32) % bound;
+      long product;
+      do {
+        state += GOLDEN_GAMMA;
+        product = (mix(state) >>> 32) * bound;
+      } while ((product & 0xFFFFFFFFL) < threshold);
+      int j = (int) (product >>> 32);
+      byte temp = cards[i];
+      cards[i] = cards[j];
+      cards[j] = temp;
+    }
+    return cards;
+  }
+
+  // the SplitMix64 finalizer
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,129 @@
+package cs3500.klondike.model.hw02;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The rule facts of a dealt deck that never change during a game: the highest rank (the
+ * only rank that may start an empty cascade pile), the number of Aces (and so of foundation
+ * piles), the length of each run, and which suits are in play.
+ *
+ * <p>Profiles are immutable. A model computes its profile once when the game starts, so
+ * the rules never need to rescan the deck.
+ */
+public final class DeckProfile {
+  private static final KlondikeCard.Suits[] SUITS = KlondikeCard.Suits.values();
+
+  private final int deckSize;
+  private final int maxRank;
+  private final int numAces;
+  private final int runLength;
+  private final Set<KlondikeCard.Suits> suits;
+
+  private DeckProfile(int deckSize, int maxRank, int[] acesPerSuit) {
+    this.deckSize = deckSize;
+    this.maxRank = maxRank;
+    EnumSet<KlondikeCard.Suits> present = EnumSet.noneOf(KlondikeCard.Suits.class);
+    int aces = 0;
+    for (int suit = 0; suit < SUITS.length; suit++) {
+      aces += acesPerSuit[suit];
+      if (acesPerSuit[suit] > 0) {
+        present.add(SUITS[suit]);
+      }
+    }
+    this.numAces = aces;
+    this.runLength = aces == 0 ? 0 : deckSize / aces;
+    this.suits = Collections.unmodifiableSet(present);
+  }
+
+  /**
+   * compute the profile of the given deck in one pass.
+   * @param deck the deck, which should already be known to be valid
+   * @return the profile of the deck
+   * @throws IllegalArgumentException if the deck or one of its cards is null
+   */
+  public static DeckProfile of(List<Card> deck) {
+    if (deck == null) {
+      throw new IllegalArgumentException("Deck is null");
+    }
+    int maxRank = 0;
+    int[] acesPerSuit = new int[SUITS.length];
+    for (int i = 0; i < deck.size(); i++) {
+      Card card = deck.get(i);
+      if (card == null) {
+        throw new IllegalArgumentException("Deck contains a null card");
+      }
+      maxRank = Math.max(maxRank, card.getRankValue());
+      if (card.getRank() == Rank.ACE) {
+        acesPerSuit[card.getSuit().ordinal()]++;
+      }
+    }
+    return new DeckProfile(deck.size(), maxRank, acesPerSuit);
+  }
+
+  /**
+   * the number of cards in the deck.
+   * @return the deck size
+   */
+  public int getDeckSize() {
+    return deckSize;
+  }
+
+  /**
+   * the highest rank value in the deck, the only rank allowed onto an empty cascade pile.
+   * @return the highest rank value
+   */
+  public int getMaxRank() {
+    return maxRank;
+  }
+
+  /**
+   * the number of Aces in the deck, which is also the number of foundation piles.
+   * @return the number of Aces
+   */
+  public int getNumAces() {
+    return numAces;
+  }
+
+  /**
+   * the number of copies of each card, for a deck of several standard decks; every suit in
+   * a valid deck has one Ace per copy.
+   * @return the number of decks, at least 1
+   */
+  public int getNumDecks() {
+    return suits.isEmpty() ? 1 : Math.max(1, numAces / suits.size());
+  }
+
+  /**
+   * the number of cards in each single-suit run of the deck.
+   * @return the run length
+   */
+  public int getRunLength() {
+    return runLength;
+  }
+
+  /**
+   * the suits that are in the deck.
+   * @return an unmodifiable set of suits
+   */
+  public Set<KlondikeCard.Suits> getSuits() {
+    return suits;
+  }
+
+  /**
+   * check if the deck has cards of the given suit.
+   * @param suit the suit
+   * @return true if the suit is in play
+   */
+  public boolean hasSuit(KlondikeCard.Suits suit) {
+    return suits.contains(suit);
+  }
+
+  @Override
+  public String toString() {
+    return "DeckProfile{size=" + deckSize + ", maxRank=" + maxRank + ", aces=" + numAces
+            + ", suits=" + suits + "}";
+  }
+}
@@ -0,0 +1,221 @@
+package cs3500.klondike.model.hw02;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Gives any number of threads safe access to one {@link KlondikeModel}, which is not
+ * thread-safe, without a lock: every command is queued, and the commands of a game are
+ * run one at a time, in the order they were queued, by whichever thread of a shared
+ * executor currently owns the game. Each command's result comes back through a
+ * {@link CompletableFuture}.
+ *
+ * <p>Queuing a command takes one atomic swap and two allocations: the command itself,
+ * which is also its link in the queue and the future the owner completes, and the copy of
+ * that future handed to the caller, so that a caller who completes or cancels it cannot
+ * change what other stages see. The queue is an intrusive
+ * multi-producer, single-consumer list (after Vyukov): producers swap themselves in at the
+ * tail, and only the owning thread ever takes from the head. A game is handed to the
+ * executor only when its queue goes from idle to busy; the owner then runs up to
+ * {@value #MAX_BATCH} commands in one go before handing the game back, so one busy game
+ * cannot hold a thread from the others. No thread belongs to any one game: a small pool,
+ * such as a {@link java.util.concurrent.ForkJoinPool} in async mode with a thread per
+ * core, can serve any number of games, and a game with nothing queued costs no thread at
+ * all.
+ *
+ * <p>Once a model is given to an actor, it must only be used through the actor's
+ * commands. Stages chained to a returned future with the non-async methods, such as
+ * {@code thenAccept}, run on the owner thread while it holds the game, before the game's
+ * next commands: they must be quick, and must never block, least of all on another
+ * command of the same game, which could then never run. Use the async methods for
+ * anything else.
+ *
+ * <p>A command that throws, even an {@link Error}, completes its future with what it
+ * threw; the game then goes on with its next command, and an {@code Error} is thrown on
+ * to the executor once the game is handed back.
+ */
+public final class KlondikeActor {
+  // commands one owner runs before it hands the game back to the executor
+  private static final int MAX_BATCH = 64;
+
+  private final KlondikeModel model;
+  private final Executor executor;
+  // the last command queued; producers swap themselves in here
+  private final AtomicReference<Command<?>> tail;
+  // the last command taken from the queue, whose next is the first still waiting; only
+  // the owner reads or changes it
+  private Command<?> head;
+  // whether the game is with the executor, so that only one thread owns it at a time
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+  private final Runnable drain = this::drain;
+
+  /**
+   * an actor for the given model, whose commands run on the given executor.
+   * @param model    the game; from now on, only to be used through this actor
+   * @param executor the threads to run commands on, usually shared by many actors
+   * @throws IllegalArgumentException if either argument is null
+   */
+  public KlondikeActor(KlondikeModel model, Executor executor) {
+    if (model == null || executor == null) {
+      throw new IllegalArgumentException("Model and executor cannot be null");
+    }
+    this.model = model;
+    this.executor = executor;
+    this.head = new Move(0);
+    this.tail = new AtomicReference<>(head);
+  }
+
+  /**
+   * queue a command on the game: any use of the model, such as starting it, making moves
+   * or reading it. The command must not keep the model, or anything it returns that
+   * changes with the game, after it returns.
+   * @param command what to do with the game
+   * @param <T>     the type of the command's result
+   * @return a future of the command's result, or of what it threw; completing it only
+   *         changes this copy
+   * @throws IllegalArgumentException if the command is null
+   */
+  public <T> CompletableFuture<T> submit(Function<? super KlondikeModel, ? extends T> command) {
+    if (command == null) {
+      throw new IllegalArgumentException("Command cannot be null");
+    }
+    return enqueue(new Call<T>(command));
+  }
+
+  /**
+   * queue a move on the game, encoded as by {@link Moves}.
+   * @param move the move
+   * @return a future of the score after the move, or of the exception that rejected it;
+   *         completing it only changes this copy
+   */
+  public CompletableFuture<Integer> move(int move) {
+    return enqueue(new Move(move));
+  }
+
+  private <T> CompletableFuture<T> enqueue(Command<T> command) {
+    Command<?> previous = tail.getAndSet(command);
+    // until this link is set, the owner sees the queue end at previous; it waits for the
+    // link if it gets there first, since the tail already shows the command
+    previous.next = command;
+    if (scheduled.compareAndSet(false, true)) {
+      schedule();
+    }
+    return command.copy();
+  }
+
+  private void schedule() {
+    try {
+      executor.execute(drain);
+    } catch (RejectedExecutionException e) {
+      // this thread owns the game now, and no other will come: fail what is queued
+      for (Command<?> command = poll(); command != null; command = poll()) {
+        command.completeExceptionally(e);
+      }
+      scheduled.set(false);
+      if (head != tail.get() && scheduled.compareAndSet(false, true)) {
+        schedule();
+      }
+    }
+  }
+
+  // run a batch of queued commands on the owning thread
+  private void drain() {
+    try {
+      for (int i = 0; i < MAX_BATCH; i++) {
+        Command<?> command = poll();
+        if (command == null) {
+          break;
+        }
+        command.run(model);
+      }
+    } finally {
+      // hand the game back even if a command threw an Error, or it would never run again
+      scheduled.set(false);
+      // a command queued after the last poll may have found the game still scheduled
+      if (head != tail.get() && scheduled.compareAndSet(false, true)) {
+        schedule();
+      }
+    }
+  }
+
+  // the next queued command, or null if there is none; owner only
+  private Command<?> poll() {
+    Command<?> next = head.next;
+    if (next == null) {
+      if (head == tail.get()) {
+        return null;
+      }
+      // a producer has swapped in at the tail but not linked its command yet
+      while ((next = head.next) == null) {
+        Thread.onSpinWait();
+      }
+    }
+    // unlink the old head, so that a caller who keeps its future does not keep every
+    // later command reachable too
+    head.next = null;
+    head = next;
+    return next;
+  }
+
+  /**
+   * A queued command: its own future and its own link in the queue.
+   */
+  private abstract static class Command<T> extends CompletableFuture<T> {
+    private volatile Command<?> next;
+
+    abstract void run(KlondikeModel model);
+
+    // complete with what a command threw; an Error still goes on up, once recorded
+    void fail(Throwable thrown) {
+      completeExceptionally(thrown);
+      if (thrown instanceof Error) {
+        throw (Error) thrown;
+      }
+    }
+  }
+
+  private static final class Call<T> extends Command<T> {
+    private final Function<? super KlondikeModel, ? extends T> command;
+
+    private Call(Function<? super KlondikeModel, ? extends T> command) {
+      this.command = command;
+    }
+
+    @Override
+    void run(KlondikeModel model) {
+      T result;
+      try {
+        result = command.apply(model);
+      } catch (Throwable e) {
+        fail(e);
+        return;
+      }
+      complete(result);
+    }
+  }
+
+  private static final class Move extends Command<Integer> {
+    private final int move;
+
+    private Move(int move) {
+      this.move = move;
+    }
+
+    @Override
+    void run(KlondikeModel model) {
+      int score;
+      try {
+        Moves.apply(model, move);
+        score = model.getScore();
+      } catch (Throwable e) {
+        fail(e);
+        return;
+      }
+      complete(score);
+    }
+  }
+}
@@ -1,21 +1,55 @@
 package cs3500.klondike.model.hw02;
 
-import java.util.List;
-
 /**
  * KlondikeCard that represents a single card.
+ *
+ * <p>Cards are immutable. The 52 distinct cards are shared through {@link #of(Suits, Rank)},
+ * so dealing and moving cards never needs to allocate new card objects. Whether a card is
+ * face-up or face-down is part of the game state, and is tracked by the model.
  */
 public class KlondikeCard implements Card {
   /**
    * enum type to represent 4 types of suits.
    */
-  public static enum Suits { CLUBS, DIAMONDS, HEARTS, SPADES }
+  public static enum Suits {
+    CLUBS(Color.BLACK, "♣"), DIAMONDS(Color.RED, "♢"), HEARTS(Color.RED, "♡"),
+    SPADES(Color.BLACK, "♠");
+
+    private final Color color;
+    private final String symbol;
+
+    Suits(Color color, String symbol) {
+      this.color = color;
+      this.symbol = symbol;
+    }
+
+    /**
+     * the color of this suit.
+     * @return RED for diamonds and hearts, and BLACK for clubs and spades
+     */
+    public Color getColor() {
+      return color;
+    }
+  }
+
+  private static final int NUM_RANKS = Rank.values().length;
+
+  // the shared instances, indexed by suit ordinal and then rank ordinal
+  private static final KlondikeCard[] CARDS = new KlondikeCard[Suits.values().length * NUM_RANKS];
+
+  static {
+    for (Suits suit : Suits.values()) {
+      for (Rank rank : Rank.values()) {
+        CARDS[suit.ordinal() * NUM_RANKS + rank.ordinal()] = new KlondikeCard(suit, rank);
+      }
+    }
+  }
 
   protected final Suits suit;
-  protected final String value;
+  protected final Rank rank;
 
-  // if the card is face-up (visible) or face-down
-  private boolean visible;
+  // the rendered card, computed once since cards never change
+  private final String text;
 
 
   /**
@@ -24,19 +58,48 @@ public class KlondikeCard implements Card {
    * @param value card number and vaule
    */
   public KlondikeCard(Suits suit, String value) {
+    this(suit, Rank.fromSymbol(value));
+  }
+
+  private KlondikeCard(Suits suit, Rank rank) {
     if (suit == null) {
       throw new IllegalArgumentException("Suit shouldn't be null.");
     }
-    if (!List.of("A", "2", "3", "4", "5", "6", "7", "8", "9", "10", "J", "Q",
-            "K").contains(value)) {
+    if (rank == null) {
       throw new IllegalArgumentException("Invalid card value");
     }
-
     this.suit = suit;
-    this.value = value;
-    // car's default state is always face-down
-    this.visible = false;
+    this.rank = rank;
+    this.text = rank.getSymbol() + suit.symbol;
+  }
 
+  /**
+   * get the shared card with the given suit and rank.
+   * @param suit the suit of the card
+   * @param rank the rank of the card
+   * @return the card
+   */
+  public static KlondikeCard of(Suits suit, Rank rank) {
+    if (suit == null || rank == null) {
+      throw new IllegalArgumentException("Card's suit or value is null");
+    }
+    return CARDS[suit.ordinal() * NUM_RANKS + rank.ordinal()];
+  }
+
+  /**
+   * get the shared card equal to the given card.
+   * @param card any card
+   * @return the shared card with the same suit and rank
+   */
+  public static KlondikeCard of(Card card) {
+    if (card == null) {
+      throw new IllegalArgumentException("Card shouldn't be null.");
+    }
+    if (card instanceof KlondikeCard) {
+      KlondikeCard other = (KlondikeCard) card;
+      return CARDS[other.suit.ordinal() * NUM_RANKS + other.rank.ordinal()];
+    }
+    return of(card.getSuit(), card.getRank());
   }
 
 
@@ -48,22 +111,7 @@ public class KlondikeCard implements Card {
    * @return the formatted card
    */
   public String toString() {
-    if (this.suit == null || this.value == null) {
-      throw new IllegalArgumentException("Card's suit or value is null");
-    }
-    switch (suit) {
-      case CLUBS:
-        return value + "♣";
-      case DIAMONDS:
-        return value + "♢";
-      case HEARTS:
-        return value + "♡";
-      case SPADES:
-        return value + "♠";
-      default:
-        // This should never be reached if all possible suits are handled in the cases above
-        throw new IllegalStateException("Unexpected card suit: " + suit);
-    }
+    return text;
   }
 
 
@@ -78,7 +126,7 @@ public class KlondikeCard implements Card {
       return false;
     }
     KlondikeCard otherCard = (KlondikeCard) other;
-    return this.suit == otherCard.suit && this.value.equals(otherCard.value);
+    return this.suit == otherCard.suit && this.rank == otherCard.rank;
   }
 
   /**
@@ -87,17 +135,17 @@ public class KlondikeCard implements Card {
    */
   @Override
   public int hashCode() {
-    return 31 * suit.hashCode() + value.hashCode();
+    return suit.ordinal() * NUM_RANKS + rank.ordinal();
   }
 
 
   /**
-   * the String value of the card.
-   * @return the car string value
+   * the rank of the card.
+   * @return the card rank
    */
   @Override
-  public String getRank() {
-    return value;
+  public Rank getRank() {
+    return rank;
   }
 
 
@@ -107,36 +155,7 @@ public class KlondikeCard implements Card {
    */
   @Override
   public int getRankValue() {
-    switch (value) {
-      case "A":
-        return 1;
-      case "2":
-        return 2;
-      case "3":
-        return 3;
-      case "4":
-        return 4;
-      case "5":
-        return 5;
-      case "6":
-        return 6;
-      case "7":
-        return 7;
-      case "8":
-        return 8;
-      case "9":
-        return 9;
-      case "10":
-        return 10;
-      case "J":
-        return 11;
-      case "Q":
-        return 12;
-      case "K":
-        return 13;
-      default:
-        throw new IllegalArgumentException("Invalid rank: " + value);
-    }
+    return rank.getValue();
   }
 
   /**
@@ -150,41 +169,12 @@ public class KlondikeCard implements Card {
 
 
   /**
-   * the String type of the color of the card.
-   * @return the card color black or white
+   * the color of the card.
+   * @return the card color, red or black
    */
   @Override
-  public String getColor() {
-    switch (suit) {
-      case DIAMONDS:
-      case HEARTS:
-        return "Red";
-      case CLUBS:
-      case SPADES:
-        return "Black";
-      default:
-        throw new IllegalArgumentException("Invalid suit: " + suit);
-    }
+  public Color getColor() {
+    return suit.getColor();
   }
 
-  /**
-   * check if it is visible.
-   * @return true if they are the same color
-   */
-  // This method returns if the card is face-up or face-down
-  public boolean isVisible() {
-    return visible;
-  }
-
-  /**
-   * set the card to be visible.
-   * @param visible ture if it is visible
-   */
-  // Setter method to set the visibility status of the card
-  public void setVisible(boolean visible) {
-    this.visible = visible;
-  }
-
-
 }
-
@@ -0,0 +1,232 @@
+package cs3500.klondike.model.hw02;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Saves a started {@link BasicKlondike} game to a compact binary layout, and loads it back
+ * without dealing it again. A standard game takes about 80 bytes, and many games can be
+ * written one after another into the same buffer.
+ *
+ * <p>Version 1 of the layout is, with every number unsigned and big-endian:
+ * <pre>
+ *   1 byte   version, 1
+ *   1 byte   number of cascade piles P
+ *   4 bytes  number of draw cards of the game
+ *   2 bytes  number of visible draw cards W
+ *   2 bytes  number of cards left in the stock S
+ *   1 byte   number of foundation piles F
+ *   F bytes  the top card of each foundation pile, or 0 if it is empty
+ *   P pairs  the number of face-down cards, then face-up cards, of each cascade pile
+ *   ...      the cards of each cascade pile, bottom card first
+ *   W bytes  the visible draw cards, top card first
+ *   S bytes  the stock, next card to draw first
+ * </pre>
+ * Each card is one byte, as packed by {@link PackedCard}. A foundation pile always holds
+ * the run of its suit from the Ace, so its top card is enough to rebuild it, and the face-up
+ * cards of a cascade pile are always a run, so neither count can exceed a byte.
+ *
+ * <p>Loading trusts the bytes to come from {@link #write}: the cards are checked to be
+ * cards and the counts to fit together, but the deck is not checked as
+ * {@link BasicKlondike#startGame} checks it. A loaded game has no moves to undo.
+ */
+public final class KlondikeCodec {
+  /**
+   * the version of the layout written by {@link #write}.
+   */
+  public static final int VERSION = 1;
+
+  private KlondikeCodec() {
+    // static helpers only
+  }
+
+  /**
+   * the number of bytes {@link #write} will write for the game as it is now.
+   * @param model a started game
+   * @return the size in bytes
+   * @throws IllegalStateException if the game hasn't been started yet
+   */
+  public static int encodedSize(BasicKlondike model) {
+    int numPiles = model.getNumPiles();
+    int size = 11 + model.foundations.size() + 2 * numPiles;
+    for (List<Card> pile : model.cascade) {
+      size += pile.size();
+    }
+    return size + model.drawPile.size() + model.restOfDeck.size();
+  }
+
+  /**
+   * write the game at the buffer's position, and move the position past it. Nothing is
+   * written if the game does not fit in the remaining space.
+   * @param model a started game
+   * @param out   the buffer to write to
+   * @throws IllegalStateException    if the game hasn't been started yet
+   * @throws IllegalArgumentException if the game has too many piles or cards for the
+   *                                  layout
+   * @throws BufferOverflowException  if the buffer has too little space left
+   */
+  public static void write(BasicKlondike model, ByteBuffer out) {
+    int size = encodedSize(model);
+    int numPiles = model.numPiles;
+    if (numPiles > 0xFF || model.foundations.size() > 0xFF
+            || model.drawPile.size() > 0xFFFF || model.restOfDeck.size() > 0xFFFF) {
+      throw new IllegalArgumentException("Game is too large for the binary layout");
+    }
+    for (int i = 0; i < numPiles; i++) {
+      if (model.faceDownCounts[i] > 0xFF) {
+        throw new IllegalArgumentException("Game is too large for the binary layout");
+      }
+    }
+    if (out.remaining() < size) {
+      throw new BufferOverflowException();
+    }
+
+    out.put((byte) VERSION);
+    out.put((byte) numPiles);
+    putShort(out, model.numDraw >>> 16);
+    putShort(out, model.numDraw & 0xFFFF);
+    putShort(out, model.drawPile.size());
+    putShort(out, model.restOfDeck.size());
+    out.put((byte) model.foundations.size());
+    for (List<Card> pile : model.foundations) {
+      out.put(pile.isEmpty() ? PackedCard.NONE : PackedCard.pack(pile.get(pile.size() - 1)));
+    }
+    for (int i = 0; i < numPiles; i++) {
+      out.put((byte) model.faceDownCounts[i]);
+      out.put((byte) (model.cascade.get(i).size() - model.faceDownCounts[i]));
+    }
+    for (List<Card> pile : model.cascade) {
+      putCards(out, pile);
+    }
+    putCards(out, model.drawPile);
+    putCards(out, model.restOfDeck);
+  }
+
+  /**
+   * write the game into a new array.
+   * @param model a started game
+   * @return the bytes of the game
+   * @throws IllegalStateException    if the game hasn't been started yet
+   * @throws IllegalArgumentException if the game has too many piles or cards for the
+   *                                  layout
+   */
+  public static byte[] toBytes(BasicKlondike model) {
+    ByteBuffer out = ByteBuffer.allocate(encodedSize(model));
+    write(model, out);
+    return out.array();
+  }
+
+  /**
+   * read a game at the buffer's position, and move the position past it.
+   * @param in the buffer to read from
+   * @return the started game
+   * @throws IllegalArgumentException if the bytes are not a game of a known version; the
+   *                                  buffer's position is then unspecified
+   */
+  public static BasicKlondike read(ByteBuffer in) {
+    try {
+      int version = in.get() & 0xFF;
+      if (version != VERSION) {
+        throw new IllegalArgumentException("Unknown saved game version " + version);
+      }
+      int numPiles = in.get() & 0xFF;
+      int numDraw = getShort(in) << 16 | getShort(in);
+      int numVisible = getShort(in);
+      int numStock = getShort(in);
+      int numFoundations = in.get() & 0xFF;
+      if (numPiles == 0 || numDraw < 0 || numVisible > numDraw
+              || (numVisible == 0 && numStock > 0 && numDraw > 0)) {
+        throw new IllegalArgumentException("Saved game has invalid sizes");
+      }
+
+      List<List<Card>> foundations = new ArrayList<>(numFoundations);
+      for (int f = 0; f < numFoundations; f++) {
+        CardPile pile = new CardPile();
+        byte top = in.get();
+        if (top != PackedCard.NONE) {
+          Card card = card(top);
+          for (int rank = 1; rank <= card.getRankValue(); rank++) {
+            pile.add(KlondikeCard.of(card.getSuit(), Rank.fromValue(rank)));
+          }
+        }
+        foundations.add(pile);
+      }
+
+      int[] faceDownCounts = new int[numPiles];
+      int[] heights = new int[numPiles];
+      for (int i = 0; i < numPiles; i++) {
+        faceDownCounts[i] = in.get() & 0xFF;
+        int faceUp = in.get() & 0xFF;
+        if (faceUp == 0 && faceDownCounts[i] > 0) {
+          throw new IllegalArgumentException("Saved pile " + i + " has a face-down top card");
+        }
+        heights[i] = faceDownCounts[i] + faceUp;
+      }
+      List<List<Card>> cascade = new ArrayList<>(numPiles);
+      for (int i = 0; i < numPiles; i++) {
+        cascade.add(getCards(in, heights[i]));
+      }
+      List<Card> drawPile = getCards(in, numVisible);
+      List<Card> restOfDeck = getCards(in, numStock);
+      int numCards = numVisible + numStock;
+      for (int i = 0; i < numPiles; i++) {
+        numCards += heights[i];
+      }
+      for (List<Card> pile : foundations) {
+        numCards += pile.size();
+      }
+      if (numCards == 0) {
+        throw new IllegalArgumentException("Saved game has no cards");
+      }
+      return BasicKlondike.restore(cascade, faceDownCounts, foundations, drawPile, restOfDeck,
+              numDraw);
+    } catch (BufferUnderflowException e) {
+      throw new IllegalArgumentException("Saved game is truncated", e);
+    }
+  }
+
+  /**
+   * read a game from an array, as written by {@link #toBytes}.
+   * @param bytes the bytes of the game
+   * @return the started game
+   * @throws IllegalArgumentException if the bytes are not a game of a known version
+   */
+  public static BasicKlondike fromBytes(byte[] bytes) {
+    return read(ByteBuffer.wrap(bytes));
+  }
+
+  private static void putShort(ByteBuffer out, int value) {
+    out.put((byte) (value >>> 8));
+    out.put((byte) value);
+  }
+
+  private static int getShort(ByteBuffer in) {
+    int high = in.get() & 0xFF;
+    return high << 8 | (in.get() & 0xFF);
+  }
+
+  private static void putCards(ByteBuffer out, List<Card> cards) {
+    for (int i = 0; i < cards.size(); i++) {
+      out.put(PackedCard.pack(cards.get(i)));
+    }
+  }
+
+  private static CardPile getCards(ByteBuffer in, int count) {
+    CardPile pile = new CardPile();
+    for (int i = 0; i < count; i++) {
+      pile.add(card(in.get()));
+    }
+    return pile;
+  }
+
+  private static Card card(byte packed) {
+    int rank = PackedCard.rank(packed);
+    if ((packed & 0xC0) != 0 || rank < 1 || rank > 13) {
+      throw new IllegalArgumentException("Saved game has an invalid card: " + packed);
+    }
+    return PackedCard.unpack(packed);
+  }
+}
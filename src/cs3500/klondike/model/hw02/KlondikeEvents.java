@@ -0,0 +1,259 @@
+package cs3500.klondike.model.hw02;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A stream of the changes made to a {@link BasicKlondike}, for views, loggers and metrics
+ * that follow a game from other threads. The game publishes each change as one
+ * {@code long} into a ring buffer allocated up front, and never waits for a subscriber:
+ * publishing is an array store and an ordered store of the count, without locks or
+ * allocation. Each {@link Subscription} reads the events at its own pace from its own
+ * thread.
+ *
+ * <p>A subscriber that falls as far behind as the buffer's capacity has lost events: the
+ * game has written, or may be writing, over them. It learns so from
+ * {@link Subscription#poll}, which then skips to the newest event, and must then read the
+ * game again some other safe way, e.g. through a {@link KlondikeActor}.
+ *
+ * <p>From the high bits down, an event packs its kind (8 bits), a source pile (16 bits),
+ * a destination pile (16 bits), a count (16 bits) and a card (8 bits, as packed by
+ * {@link PackedCard}). Fields a kind does not use are 0:
+ * <pre>
+ *   START                    the game was dealt: source is the number of piles, count the
+ *                            number of draw cards
+ *   PILE (movePile)          source, destination, count of cards; card is the lowest one
+ *   DRAW (moveDraw)          destination; count is the cards dealt from the stock to
+ *                            refill the draw cards, if they ran out; card is the card moved
+ *   PILE_TO_FOUNDATION       source, destination foundation; count is 1, the cards
+ *                            moved; card is the card moved
+ *   DRAW_TO_FOUNDATION       destination foundation, count as for DRAW; card as for DRAW
+ *   DISCARD (discardDraw)    card is the card discarded
+ *   REVEAL                   a cascade card was turned face-up by the move before it:
+ *                            source is its pile, count its row, card the card
+ *   UNDO                     the last move was taken back: source, destination and count
+ *                            as in that move's event, and card is that move's kind; a
+ *                            HIDE follows if the move had revealed a card
+ *   HIDE                     a cascade card was turned face-down again by the UNDO
+ *                            before it: source, count and card as in its REVEAL
+ * </pre>
+ * The move kinds are those of {@link Moves}. A move that the game rejects publishes
+ * nothing, and a redone move is published as the move itself.
+ *
+ * <p>Only one thread at a time may publish, normally the game's own: a stream can follow
+ * several games played on one thread, but not games played on different threads.
+ */
+public final class KlondikeEvents {
+  /**
+   * kind of the event of a deal.
+   */
+  public static final int START = 0;
+  /**
+   * kind of the event of a cascade card turned face-up.
+   */
+  public static final int REVEAL = 6;
+  /**
+   * kind of the event of a move taken back.
+   */
+  public static final int UNDO = 7;
+  /**
+   * kind of the event of a cascade card turned face-down again.
+   */
+  public static final int HIDE = 8;
+
+  private final long[] ring;
+  private final int mask;
+  // the number of events published; set by the publisher only, after the event is stored
+  private final AtomicLong published = new AtomicLong();
+  // the publisher's own copy of published, so publishing never reads the atomic
+  private long next;
+
+  /**
+   * a stream whose subscribers can fall up to one event less than the given capacity
+   * behind without losing any.
+   * @param capacity the size of the ring buffer, a power of two of at least 2
+   * @throws IllegalArgumentException if the capacity is not a power of two of at least 2
+   */
+  public KlondikeEvents(int capacity) {
+    if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Capacity must be a power of two of at least 2");
+    }
+    this.ring = new long[capacity];
+    this.mask = capacity - 1;
+  }
+
+  // store the event, then make it visible to subscribers
+  void publish(int kind, int source, int destination, int count, byte card) {
+    // the store into the slot must not be seen before the count of the event published
+    // last, or a subscriber could take the new event for the one it writes over
+    VarHandle.storeStoreFence();
+    ring[(int) next & mask] = event(kind, source, destination, count, card);
+    published.lazySet(++next);
+  }
+
+  /**
+   * pack an event; fields wider than their bits are cut to them.
+   * @param kind        the kind
+   * @param source      the source pile
+   * @param destination the destination pile
+   * @param count       the count
+   * @param card        the packed card
+   * @return the event
+   */
+  static long event(int kind, int source, int destination, int count, byte card) {
+    return (long) (kind & 0xFF) << 56 | (long) (source & 0xFFFF) << 40
+            | (long) (destination & 0xFFFF) << 24 | (long) (count & 0xFFFF) << 8
+            | (card & 0xFF);
+  }
+
+  /**
+   * subscribe to the events published from now on.
+   * @return a new subscription, for one thread to read from
+   */
+  public Subscription subscribe() {
+    return new Subscription(published.get());
+  }
+
+  /**
+   * the number of events published so far.
+   * @return the number of events
+   */
+  public long getPublished() {
+    return published.get();
+  }
+
+  /**
+   * the kind of the event, {@link #START}, one of the kinds of {@link Moves}, or
+   * {@link #REVEAL}, {@link #UNDO} or {@link #HIDE}.
+   * @param event the event
+   * @return the kind
+   */
+  public static int kind(long event) {
+    return (int) (event >>> 56);
+  }
+
+  /**
+   * the source pile of the event.
+   * @param event the event
+   * @return the source pile
+   */
+  public static int source(long event) {
+    return (int) (event >>> 40) & 0xFFFF;
+  }
+
+  /**
+   * the destination pile of the event.
+   * @param event the event
+   * @return the destination pile
+   */
+  public static int destination(long event) {
+    return (int) (event >>> 24) & 0xFFFF;
+  }
+
+  /**
+   * the count of the event.
+   * @param event the event
+   * @return the count
+   */
+  public static int count(long event) {
+    return (int) (event >>> 8) & 0xFFFF;
+  }
+
+  /**
+   * the card of the event, as packed by {@link PackedCard}; for an {@link #UNDO}, the kind
+   * of the move taken back.
+   * @param event the event
+   * @return the packed card
+   */
+  public static byte card(long event) {
+    return (byte) event;
+  }
+
+  /**
+   * render the event, e.g. {@code "UNDO(0, 3, 2, 1)"}, for logs.
+   * @param event the event
+   * @return the event as a String
+   */
+  public static String toString(long event) {
+    String fields = source(event) + ", " + destination(event) + ", " + count(event) + ", ";
+    switch (kind(event)) {
+      case START:
+        return "START(" + source(event) + ", " + count(event) + ")";
+      case Moves.PILE:
+        return "PILE(" + fields + PackedCard.unpack(card(event)) + ")";
+      case Moves.DRAW:
+        return "DRAW(" + fields + PackedCard.unpack(card(event)) + ")";
+      case Moves.PILE_TO_FOUNDATION:
+        return "PILE_TO_FOUNDATION(" + fields + PackedCard.unpack(card(event)) + ")";
+      case Moves.DRAW_TO_FOUNDATION:
+        return "DRAW_TO_FOUNDATION(" + fields + PackedCard.unpack(card(event)) + ")";
+      case Moves.DISCARD:
+        return "DISCARD(" + PackedCard.unpack(card(event)) + ")";
+      case REVEAL:
+        return "REVEAL(" + fields + PackedCard.unpack(card(event)) + ")";
+      case UNDO:
+        return "UNDO(" + fields + card(event) + ")";
+      case HIDE:
+        return "HIDE(" + fields + PackedCard.unpack(card(event)) + ")";
+      default:
+        return "invalid(" + event + ")";
+    }
+  }
+
+  /**
+   * One subscriber's place in the stream. Not thread-safe: each subscription is read by
+   * one thread at a time.
+   */
+  public final class Subscription {
+    // the number of the next event to read
+    private long position;
+    private long lost;
+
+    private Subscription(long position) {
+      this.position = position;
+    }
+
+    /**
+     * copy the events published since the last poll, oldest first, as many as fit.
+     * @param events where to copy them
+     * @return the number of events copied, or -1 if some were written over before they
+     *         were read; the subscription then continues from the newest event
+     */
+    public int poll(long[] events) {
+      long end = Math.min(published.get(), position + events.length);
+      int count = (int) (end - position);
+      for (int i = 0; i < count; i++) {
+        events[i] = ring[(int) (position + i) & mask];
+      }
+      // the events must be read before the check that they were not written over
+      VarHandle.acquireFence();
+      long newest = published.get();
+      // while event newest is stored, it writes over event newest - capacity, so only the
+      // events after that one are sure to be whole; the copied events are numbered from
+      // position up, so if any of them is too old, the first one is
+      if (count > 0 && position <= newest - ring.length) {
+        lost += newest - position;
+        position = newest;
+        return -1;
+      }
+      position = end;
+      return count;
+    }
+
+    /**
+     * the number of events published and not yet read, including any already lost.
+     * @return the number of events waiting
+     */
+    public long getPending() {
+      return published.get() - position;
+    }
+
+    /**
+     * the number of events this subscription has lost by falling behind.
+     * @return the number of events lost
+     */
+    public long getLost() {
+      return lost;
+    }
+  }
+}
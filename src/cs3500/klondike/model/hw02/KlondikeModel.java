@@ -209,4 +209,13 @@ public interface KlondikeModel {
    * @throws IllegalStateException if the game hasn't been started yet
    */
   int getNumFoundations() throws IllegalStateException;
+
+  /**
+   * Returns the rule facts of the deck this game was dealt from: its highest rank, number
+   * of Aces, run length, suits, and how suits map onto foundation piles. These are computed
+   * once when the game starts and never change.
+   * @return the profile of the dealt deck
+   * @throws IllegalStateException if the game hasn't been started yet
+   */
+  DeckProfile getDeckProfile() throws IllegalStateException;
 }
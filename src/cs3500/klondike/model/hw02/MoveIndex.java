@@ -0,0 +1,146 @@
+package cs3500.klondike.model.hw02;
+
+import java.util.Arrays;
+
+/**
+ * Counts the legal card moves of a game, kept up to date as the game changes instead of
+ * being recomputed by comparing every pile with every other pile.
+ *
+ * <p>Every place a card can go "wants" one kind of card: a cascade pile wants the next
+ * lower rank in the opposite color, an empty cascade wants the highest rank, a foundation
+ * wants the next higher rank of its suit and an empty foundation wants any Ace. Every card
+ * that can be moved "supplies" its kind: any face-up cascade card (carrying the cards above
+ * it) and the top draw card supply cascades, while cascade tops and the top draw card
+ * supply foundations. The number of legal moves is the sum, over each kind, of supply
+ * times want, so a change to a single count updates the total in constant time.
+ *
+ * <p>The model reports each change to a pile top, a face-up card, a foundation top or the
+ * top draw card, with a delta of {@code +1} when it appears and {@code -1} when it goes.
+ */
+final class MoveIndex {
+  // cascade kinds: rank value * 2 + color ordinal
+  private final int[] cascadeSupply = new int[2 * 15];
+  private final int[] cascadeWant = new int[2 * 15];
+  // foundation kinds: suit ordinal * 16 + rank value
+  private final int[] foundationSupply = new int[4 * 16];
+  private final int[] foundationWant = new int[4 * 16];
+
+  private int maxRank;
+  private int maxRankSupply;
+  private int emptyPiles;
+  private int aceSupply;
+  private int emptyFoundations;
+  private int count;
+
+  /**
+   * forget every card, for a new game.
+   * @param maxRank the highest rank of the deck, which empty cascade piles want
+   */
+  void reset(int maxRank) {
+    Arrays.fill(cascadeSupply, 0);
+    Arrays.fill(cascadeWant, 0);
+    Arrays.fill(foundationSupply, 0);
+    Arrays.fill(foundationWant, 0);
+    this.maxRank = maxRank;
+    maxRankSupply = 0;
+    emptyPiles = 0;
+    aceSupply = 0;
+    emptyFoundations = 0;
+    count = 0;
+  }
+
+  /**
+   * take over the counts of another index, for a copy of its game.
+   * @param other the index to copy
+   */
+  void copyFrom(MoveIndex other) {
+    System.arraycopy(other.cascadeSupply, 0, cascadeSupply, 0, cascadeSupply.length);
+    System.arraycopy(other.cascadeWant, 0, cascadeWant, 0, cascadeWant.length);
+    System.arraycopy(other.foundationSupply, 0, foundationSupply, 0, foundationSupply.length);
+    System.arraycopy(other.foundationWant, 0, foundationWant, 0, foundationWant.length);
+    maxRank = other.maxRank;
+    maxRankSupply = other.maxRankSupply;
+    emptyPiles = other.emptyPiles;
+    aceSupply = other.aceSupply;
+    emptyFoundations = other.emptyFoundations;
+    count = other.count;
+  }
+
+  /**
+   * the number of legal card moves: cascade to cascade (one per card that can lead the
+   * moved run), draw to cascade, cascade to foundation and draw to foundation.
+   * @return the number of legal card moves
+   */
+  int count() {
+    return count;
+  }
+
+  /**
+   * a face-up cascade card appears or goes; it can be moved onto other cascade piles.
+   * @param card the card
+   * @param delta +1 or -1
+   */
+  void faceUpCard(Card card, int delta) {
+    int kind = card.getRankValue() * 2 + card.getColor().ordinal();
+    cascadeSupply[kind] += delta;
+    count += delta * cascadeWant[kind];
+    if (card.getRankValue() == maxRank) {
+      maxRankSupply += delta;
+      count += delta * emptyPiles;
+    }
+  }
+
+  /**
+   * the top card of a cascade pile appears or goes, or the pile becomes or stops being
+   * empty.
+   * @param top the top card, or null for an empty pile
+   * @param delta +1 or -1
+   */
+  void pileTop(Card top, int delta) {
+    if (top == null) {
+      emptyPiles += delta;
+      count += delta * maxRankSupply;
+      return;
+    }
+    int wanted = (top.getRankValue() - 1) * 2 + top.getColor().opposite().ordinal();
+    cascadeWant[wanted] += delta;
+    count += delta * cascadeSupply[wanted];
+    foundationCandidate(top, delta);
+  }
+
+  /**
+   * the top card of a foundation pile appears or goes.
+   * @param top the top card, or null for an empty foundation pile
+   * @param delta +1 or -1
+   */
+  void foundationTop(Card top, int delta) {
+    if (top == null) {
+      emptyFoundations += delta;
+      count += delta * aceSupply;
+      return;
+    }
+    int wanted = top.getSuit().ordinal() * 16 + top.getRankValue() + 1;
+    foundationWant[wanted] += delta;
+    count += delta * foundationSupply[wanted];
+  }
+
+  /**
+   * the top draw card appears or goes; it can go to a cascade or a foundation.
+   * @param card the top draw card
+   * @param delta +1 or -1
+   */
+  void drawTop(Card card, int delta) {
+    faceUpCard(card, delta);
+    foundationCandidate(card, delta);
+  }
+
+  private void foundationCandidate(Card card, int delta) {
+    int kind = card.getSuit().ordinal() * 16 + card.getRankValue();
+    foundationSupply[kind] += delta;
+    count += delta * foundationWant[kind];
+    if (card.getRank() == Rank.ACE) {
+      aceSupply += delta;
+      count += delta * emptyFoundations;
+    }
+  }
+}
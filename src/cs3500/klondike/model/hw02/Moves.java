@@ -0,0 +1,182 @@
+package cs3500.klondike.model.hw02;
+
+/**
+ * Encodes a Klondike move as a single int, so that move lists can be kept in plain
+ * {@code int[]} arrays without allocating move objects.
+ *
+ * <p>From the high byte down, a move packs its kind, its source pile, its number of cards
+ * and its destination pile (a cascade pile or a foundation pile, depending on the kind).
+ * Fields a kind does not use are 0. Every encoded move is non-zero.
+ */
+public final class Moves {
+  /**
+   * kind of {@link KlondikeModel#movePile}.
+   */
+  public static final int PILE = 1;
+  /**
+   * kind of {@link KlondikeModel#moveDraw}.
+   */
+  public static final int DRAW = 2;
+  /**
+   * kind of {@link KlondikeModel#moveToFoundation}.
+   */
+  public static final int PILE_TO_FOUNDATION = 3;
+  /**
+   * kind of {@link KlondikeModel#moveDrawToFoundation}.
+   */
+  public static final int DRAW_TO_FOUNDATION = 4;
+  /**
+   * kind of {@link KlondikeModel#discardDraw}.
+   */
+  public static final int DISCARD = 5;
+
+  private Moves() {
+    // static helpers only
+  }
+
+  /**
+   * encode a {@link KlondikeModel#movePile} move.
+   * @param srcPile  the source cascade pile
+   * @param numCards how many cards to move
+   * @param destPile the destination cascade pile
+   * @return the encoded move
+   */
+  public static int movePile(int srcPile, int numCards, int destPile) {
+    return encode(PILE, srcPile, numCards, destPile);
+  }
+
+  /**
+   * encode a {@link KlondikeModel#moveDraw} move.
+   * @param destPile the destination cascade pile
+   * @return the encoded move
+   */
+  public static int moveDraw(int destPile) {
+    return encode(DRAW, 0, 1, destPile);
+  }
+
+  /**
+   * encode a {@link KlondikeModel#moveToFoundation} move.
+   * @param srcPile        the source cascade pile
+   * @param foundationPile the destination foundation pile
+   * @return the encoded move
+   */
+  public static int moveToFoundation(int srcPile, int foundationPile) {
+    return encode(PILE_TO_FOUNDATION, srcPile, 1, foundationPile);
+  }
+
+  /**
+   * encode a {@link KlondikeModel#moveDrawToFoundation} move.
+   * @param foundationPile the destination foundation pile
+   * @return the encoded move
+   */
+  public static int moveDrawToFoundation(int foundationPile) {
+    return encode(DRAW_TO_FOUNDATION, 0, 1, foundationPile);
+  }
+
+  /**
+   * encode a {@link KlondikeModel#discardDraw} move.
+   * @return the encoded move
+   */
+  public static int discardDraw() {
+    return encode(DISCARD, 0, 0, 0);
+  }
+
+  private static int encode(int kind, int source, int count, int destination) {
+    if (source < 0 || source > 0xFF || count < 0 || count > 0xFF
+            || destination < 0 || destination > 0xFF) {
+      throw new IllegalArgumentException("Move does not fit in an int: " + source + ", "
+              + count + ", " + destination);
+    }
+    return kind << 24 | source << 16 | count << 8 | destination;
+  }
+
+  /**
+   * the kind of the move, one of {@link #PILE}, {@link #DRAW}, {@link #PILE_TO_FOUNDATION},
+   * {@link #DRAW_TO_FOUNDATION} and {@link #DISCARD}.
+   * @param move the encoded move
+   * @return the kind
+   */
+  public static int kind(int move) {
+    return move >>> 24;
+  }
+
+  /**
+   * the source cascade pile of the move.
+   * @param move the encoded move
+   * @return the 0-based source pile
+   */
+  public static int source(int move) {
+    return (move >>> 16) & 0xFF;
+  }
+
+  /**
+   * the number of cards the move takes.
+   * @param move the encoded move
+   * @return the number of cards
+   */
+  public static int count(int move) {
+    return (move >>> 8) & 0xFF;
+  }
+
+  /**
+   * the destination of the move: a cascade pile for {@link #PILE} and {@link #DRAW}, and
+   * a foundation pile for {@link #PILE_TO_FOUNDATION} and {@link #DRAW_TO_FOUNDATION}.
+   * @param move the encoded move
+   * @return the 0-based destination pile
+   */
+  public static int destination(int move) {
+    return move & 0xFF;
+  }
+
+  /**
+   * make the move on any model, through its public move methods.
+   * @param model the model to play on
+   * @param move  the encoded move
+   * @throws IllegalArgumentException if the move is not a valid encoding, or the model
+   *                                  rejects its pile numbers
+   * @throws IllegalStateException    if the model rejects the move
+   */
+  public static void apply(KlondikeModel model, int move) {
+    switch (kind(move)) {
+      case PILE:
+        model.movePile(source(move), count(move), destination(move));
+        break;
+      case DRAW:
+        model.moveDraw(destination(move));
+        break;
+      case PILE_TO_FOUNDATION:
+        model.moveToFoundation(source(move), destination(move));
+        break;
+      case DRAW_TO_FOUNDATION:
+        model.moveDrawToFoundation(destination(move));
+        break;
+      case DISCARD:
+        model.discardDraw();
+        break;
+      default:
+        throw new IllegalArgumentException("Invalid move: " + move);
+    }
+  }
+
+  /**
+   * render the move in the words of the model methods, e.g. {@code "movePile(0, 2, 3)"}.
+   * @param move the encoded move
+   * @return the move as a String
+   */
+  public static String toString(int move) {
+    switch (kind(move)) {
+      case PILE:
+        return "movePile(" + source(move) + ", " + count(move) + ", " + destination(move) + ")";
+      case DRAW:
+        return "moveDraw(" + destination(move) + ")";
+      case PILE_TO_FOUNDATION:
+        return "moveToFoundation(" + source(move) + ", " + destination(move) + ")";
+      case DRAW_TO_FOUNDATION:
+        return "moveDrawToFoundation(" + destination(move) + ")";
+      case DISCARD:
+        return "discardDraw()";
+      default:
+        return "invalid(" + move + ")";
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package cs3500.klondike.model.hw02;
+
+/**
+ * Packs a card into a single byte, for models and tools that store cards as primitives.
+ * The suit ordinal takes the high bits and the rank value (1 to 13) the low 4 bits, so
+ * {@code 0} never encodes a card and can be used to mean "no card".
+ */
+public final class PackedCard {
+  /**
+   * the value that never encodes a card.
+   */
+  public static final byte NONE = 0;
+
+  private static final KlondikeCard.Suits[] SUITS = KlondikeCard.Suits.values();
+
+  private PackedCard() {
+    // static helpers only
+  }
+
+  /**
+   * pack the given card into a byte.
+   * @param card the card to pack
+   * @return the packed card
+   */
+  public static byte pack(Card card) {
+    return pack(card.getSuit().ordinal(), card.getRankValue());
+  }
+
+  /**
+   * pack the given suit ordinal and rank value into a byte.
+   * @param suit the suit ordinal
+   * @param rank the rank value, from 1 to 13
+   * @return the packed card
+   */
+  public static byte pack(int suit, int rank) {
+    return (byte) ((suit << 4) | rank);
+  }
+
+  /**
+   * get the shared card for the given packed card.
+   * @param packed the packed card
+   * @return the card, or null for {@link #NONE}
+   */
+  public static Card unpack(byte packed) {
+    if (packed == NONE) {
+      return null;
+    }
+    return KlondikeCard.of(SUITS[suit(packed)], Rank.fromValue(rank(packed)));
+  }
+
+  /**
+   * get the rank value of the packed card.
+   * @param packed the packed card
+   * @return the rank value, from 1 to 13
+   */
+  public static int rank(byte packed) {
+    return packed & 0x0F;
+  }
+
+  /**
+   * get the suit ordinal of the packed card.
+   * @param packed the packed card
+   * @return the suit ordinal
+   */
+  public static int suit(byte packed) {
+    return (packed >> 4) & 0x03;
+  }
+
+  /**
+   * check if the packed card is a red card.
+   * @param packed the packed card
+   * @return true for diamonds and hearts
+   */
+  public static boolean isRed(byte packed) {
+    return SUITS[suit(packed)].getColor() == Color.RED;
+  }
+}
@@ -0,0 +1,449 @@
+package cs3500.klondike.model.hw02;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A Klondike model with the same rules as {@link BasicKlondike}, that stores the whole game
+ * as primitive arrays instead of lists of card objects. Cards are packed into bytes with
+ * {@link PackedCard}, and each cascade pile only remembers how many of its cards are still
+ * face-down. Card objects are only handed out at the interface boundary
+ * ({@link #getCardAt(int, int)}, {@link #getCardAt(int)} and {@link #getDrawCards()}).
+ *
+ * <p>A started game uses a handful of arrays no matter how many cards are in play, which
+ * keeps the heap small when many games live in one JVM.
+ */
+public class PackedKlondike implements KlondikeModel {
+
+  // all cascade piles in one array; pile p uses the slots from p * pileCapacity
+  private byte[] cascades;
+  private int pileCapacity;
+  private int[] pileHeights;
+  private int[] faceDownCounts;
+
+  // a foundation pile is always a run from the Ace, so only its top card is stored
+  private byte[] foundationTops;
+
+  // the visible draw cards, as a ring of numDraw slots starting at drawHead
+  private byte[] drawCards;
+  private int drawHead;
+  private int drawSize;
+
+  // the rest of the stock, still to be drawn from restHead onward
+  private byte[] restOfDeck;
+  private int restHead;
+
+  private int numPiles;
+  private int numDraw;
+  private DeckProfile profile;
+  private int maxRank;
+  private boolean isGameStarted;
+
+  /**
+   * the initialization of the PackedKlondike constructor.
+   */
+  public PackedKlondike() {
+    this.isGameStarted = false;
+  }
+
+  @Override
+  public List<Card> getDeck() {
+    byte[] cards = Deals.deal(BasicKlondike.generateDefaultDeck(), Deals.randomDealNumber());
+    List<Card> deck = new ArrayList<>(cards.length);
+    for (byte card : cards) {
+      deck.add(PackedCard.unpack(card));
+    }
+    return deck;
+  }
+
+  @Override
+  public void startGame(List<Card> deck, boolean shuffle, int numPiles, int numDraw)
+          throws IllegalArgumentException, IllegalStateException {
+    deal(deck, shuffle, Deals.randomDealNumber(), numPiles, numDraw);
+  }
+
+  /**
+   * Deal a new game from the given deck, shuffled into the order of the given deal number,
+   * as {@link BasicKlondike#startGame(List, long, int, int)} deals it.
+   *
+   * @param deck       the cards to be dealt, in any order; the list is not changed
+   * @param dealNumber the deal number
+   * @param numPiles   number of piles to be dealt
+   * @param numDraw    maximum number of draw cards available at a time
+   * @throws IllegalStateException    if the game has already started
+   * @throws IllegalArgumentException if the deck is null or invalid,
+   *                                  a full cascade cannot be dealt with the given sizes,
+   *                                  or another input is invalid
+   */
+  public void startGame(List<Card> deck, long dealNumber, int numPiles, int numDraw)
+          throws IllegalArgumentException, IllegalStateException {
+    deal(deck, true, dealNumber, numPiles, numDraw);
+  }
+
+  private void deal(List<Card> deck, boolean shuffle, long dealNumber, int numPiles,
+                    int numDraw) {
+    if (isGameStarted) {
+      throw new IllegalStateException("The game has already started.");
+    }
+    if (deck == null || deck.isEmpty()) {
+      throw new IllegalArgumentException("Deck is null or invalid");
+    }
+    if (numPiles <= 0 || numDraw < 0) {
+      throw new IllegalArgumentException("Invalid number of cascade piles.");
+    }
+    if (deck.size() < ((numPiles * (numPiles + 1)) / 2)) {
+      throw new IllegalArgumentException("Not enough cards in deck for the given number of "
+              + "piles and draw cards.");
+    }
+    String problem = BasicKlondike.deckProblem(deck, 1);
+    if (problem != null) {
+      throw new IllegalArgumentException("Provided deck is not valid for Klondike: " + problem);
+    }
+
+    profile = DeckProfile.of(deck);
+    maxRank = profile.getMaxRank();
+    byte[] cards;
+    if (shuffle) {
+      cards = Deals.deal(deck, dealNumber);
+    } else {
+      cards = new byte[deck.size()];
+      for (int i = 0; i < cards.length; i++) {
+        cards[i] = PackedCard.pack(deck.get(i));
+      }
+    }
+
+    this.numPiles = numPiles;
+    this.numDraw = numDraw;
+    pileCapacity = cards.length;
+    cascades = new byte[numPiles * pileCapacity];
+    pileHeights = new int[numPiles];
+    faceDownCounts = new int[numPiles];
+    foundationTops = new byte[profile.getNumAces()];
+
+    // deal in rows, left-to-right, into the characteristic cascade shape
+    int cardIndex = 0;
+    for (int row = 0; row < numPiles; row++) {
+      for (int pile = row; pile < numPiles; pile++) {
+        cascades[pile * pileCapacity + row] = cards[cardIndex++];
+      }
+    }
+    for (int pile = 0; pile < numPiles; pile++) {
+      pileHeights[pile] = pile + 1;
+      faceDownCounts[pile] = pile;
+    }
+
+    drawCards = new byte[numDraw];
+    drawHead = 0;
+    drawSize = Math.min(numDraw, cards.length - cardIndex);
+    System.arraycopy(cards, cardIndex, drawCards, 0, drawSize);
+    cardIndex += drawSize;
+
+    restOfDeck = Arrays.copyOfRange(cards, cardIndex, cards.length);
+    restHead = 0;
+
+    isGameStarted = true;
+  }
+
+  @Override
+  public void movePile(int srcPile, int numCards, int destPile)
+          throws IllegalArgumentException, IllegalStateException {
+    ensureGameStarted();
+    if (srcPile == destPile || srcPile < 0 || srcPile >= numPiles || destPile < 0
+            || destPile >= numPiles) {
+      throw new IllegalArgumentException("Invalid pile numbers provided");
+    }
+    int srcHeight = pileHeights[srcPile];
+    if (numCards <= 0 || srcHeight < numCards) {
+      throw new IllegalArgumentException("Not enough cards in source pile to move");
+    }
+    if (srcHeight - numCards < faceDownCounts[srcPile]) {
+      throw new IllegalStateException("Cannot move face-down cards");
+    }
+
+    int from = srcPile * pileCapacity + srcHeight - numCards;
+    byte movingCard = cascades[from];
+    int destHeight = pileHeights[destPile];
+    if (destHeight == 0) {
+      if (PackedCard.rank(movingCard) != maxRank) {
+        throw new IllegalStateException("Only the highest rank card can be placed on an "
+                + "empty pile");
+      }
+    } else {
+      byte topDestCard = cascades[destPile * pileCapacity + destHeight - 1];
+      if (PackedCard.rank(movingCard) + 1 != PackedCard.rank(topDestCard)) {
+        throw new IllegalStateException("Card being moved does not follow in sequence");
+      }
+      if (PackedCard.isRed(movingCard) == PackedCard.isRed(topDestCard)) {
+        throw new IllegalStateException("Card being moved must be opposite in color");
+      }
+    }
+
+    System.arraycopy(cascades, from, cascades, destPile * pileCapacity + destHeight, numCards);
+    pileHeights[destPile] += numCards;
+    pileHeights[srcPile] -= numCards;
+    revealTopCard(srcPile);
+  }
+
+  @Override
+  public void moveDraw(int destPile) throws IllegalArgumentException, IllegalStateException {
+    ensureGameStarted();
+    if (destPile < 0 || destPile >= numPiles) {
+      throw new IllegalArgumentException("Invalid destination pile provided.");
+    }
+    byte topDrawCard = topDrawCard();
+    int destHeight = pileHeights[destPile];
+    if (!isValidMoveToCascade(topDrawCard, destHeight == 0 ? PackedCard.NONE
+            : cascades[destPile * pileCapacity + destHeight - 1])) {
+      throw new IllegalStateException("Invalid move to cascade: Tried to move "
+              + PackedCard.unpack(topDrawCard) + " on top of " + (destHeight == 0 ? null
+              : PackedCard.unpack(cascades[destPile * pileCapacity + destHeight - 1])));
+    }
+    cascades[destPile * pileCapacity + destHeight] = topDrawCard;
+    pileHeights[destPile]++;
+    removeTopDrawCard();
+  }
+
+  @Override
+  public void moveToFoundation(int srcPile, int foundationPile)
+          throws IllegalArgumentException, IllegalStateException {
+    ensureGameStarted();
+    if (srcPile < 0 || srcPile >= numPiles || foundationPile < 0
+            || foundationPile >= foundationTops.length) {
+      throw new IllegalArgumentException("Invalid pile number");
+    }
+    int srcHeight = pileHeights[srcPile];
+    if (srcHeight == 0) {
+      throw new IllegalStateException("Source pile is empty");
+    }
+    byte topSourceCard = cascades[srcPile * pileCapacity + srcHeight - 1];
+    if (!isValidMoveToFoundation(topSourceCard, foundationTops[foundationPile])) {
+      throw new IllegalStateException("Invalid move to foundation");
+    }
+    foundationTops[foundationPile] = topSourceCard;
+    pileHeights[srcPile]--;
+    revealTopCard(srcPile);
+  }
+
+  @Override
+  public void moveDrawToFoundation(int foundationPile)
+          throws IllegalArgumentException, IllegalStateException {
+    ensureGameStarted();
+    if (foundationPile < 0 || foundationPile >= foundationTops.length) {
+      throw new IllegalArgumentException("Invalid foundation pile number");
+    }
+    byte topDrawCard = topDrawCard();
+    if (!isValidMoveToFoundation(topDrawCard, foundationTops[foundationPile])) {
+      throw new IllegalStateException("Invalid move to foundation");
+    }
+    foundationTops[foundationPile] = topDrawCard;
+    removeTopDrawCard();
+  }
+
+  @Override
+  public void discardDraw() throws IllegalStateException {
+    ensureGameStarted();
+    if (drawSize == 0) {
+      throw new IllegalStateException("No draw cards available to discard");
+    }
+    // the topmost draw card goes to the bottom of the visible draw cards
+    drawCards[(drawHead + drawSize) % numDraw] = drawCards[drawHead];
+    drawHead = (drawHead + 1) % numDraw;
+  }
+
+  // Returns the topmost draw card, refilling the draw cards from the rest of the deck first
+  // if none are showing
+  private byte topDrawCard() {
+    if (drawSize == 0) {
+      if (restHead == restOfDeck.length) {
+        throw new IllegalStateException("No draw cards available");
+      }
+      drawFromDeck();
+      if (drawSize == 0) {
+        throw new IllegalStateException("No draw cards available");
+      }
+    }
+    return drawCards[drawHead];
+  }
+
+  private void removeTopDrawCard() {
+    drawHead = (drawHead + 1) % numDraw;
+    drawSize--;
+    if (drawSize == 0 && restHead < restOfDeck.length) {
+      drawFromDeck();
+    }
+  }
+
+  private void drawFromDeck() {
+    drawHead = 0;
+    drawSize = Math.min(numDraw, restOfDeck.length - restHead);
+    System.arraycopy(restOfDeck, restHead, drawCards, 0, drawSize);
+    restHead += drawSize;
+  }
+
+  private void revealTopCard(int pileNum) {
+    int height = pileHeights[pileNum];
+    if (height > 0 && faceDownCounts[pileNum] >= height) {
+      faceDownCounts[pileNum] = height - 1;
+    }
+  }
+
+  private boolean isValidMoveToCascade(byte movingCard, byte topDestCard) {
+    if (topDestCard == PackedCard.NONE) {
+      return PackedCard.rank(movingCard) == maxRank;
+    }
+    return PackedCard.rank(movingCard) + 1 == PackedCard.rank(topDestCard)
+            && PackedCard.isRed(movingCard) != PackedCard.isRed(topDestCard);
+  }
+
+  private boolean isValidMoveToFoundation(byte movingCard, byte topDestCard) {
+    if (topDestCard == PackedCard.NONE) {
+      return PackedCard.rank(movingCard) == 1;
+    }
+    return PackedCard.rank(movingCard) == PackedCard.rank(topDestCard) + 1
+            && PackedCard.suit(movingCard) == PackedCard.suit(topDestCard);
+  }
+
+  @Override
+  public int getNumRows() throws IllegalStateException {
+    ensureGameStarted();
+    int maxRows = 0;
+    for (int height : pileHeights) {
+      maxRows = Math.max(maxRows, height);
+    }
+    return maxRows;
+  }
+
+  @Override
+  public int getNumPiles() throws IllegalStateException {
+    ensureGameStarted();
+    return numPiles;
+  }
+
+  @Override
+  public int getNumDraw() throws IllegalStateException {
+    ensureGameStarted();
+    return numDraw;
+  }
+
+  @Override
+  public boolean isGameOver() throws IllegalStateException {
+    ensureGameStarted();
+    // draw cards can always be discarded
+    if (drawSize > 0) {
+      return false;
+    }
+    for (int i = 0; i < numPiles; i++) {
+      int base = i * pileCapacity;
+      int height = pileHeights[i];
+      // any face-up card can lead a run onto another pile
+      for (int card = faceDownCounts[i]; card < height; card++) {
+        for (int j = 0; j < numPiles; j++) {
+          if (i != j && isValidMoveToCascade(cascades[base + card], pileHeights[j] == 0
+                  ? PackedCard.NONE : cascades[j * pileCapacity + pileHeights[j] - 1])) {
+            return false;
+          }
+        }
+      }
+      if (height > 0) {
+        for (byte foundationTop : foundationTops) {
+          if (isValidMoveToFoundation(cascades[base + height - 1], foundationTop)) {
+            return false;
+          }
+        }
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int getScore() throws IllegalStateException {
+    ensureGameStarted();
+    int score = 0;
+    for (byte foundationTop : foundationTops) {
+      // a foundation holds every rank from the Ace up to its top card
+      int rank = PackedCard.rank(foundationTop);
+      score += rank * (rank + 1) / 2;
+    }
+    return score;
+  }
+
+  @Override
+  public int getPileHeight(int pileNum) throws IllegalArgumentException, IllegalStateException {
+    ensureGameStarted();
+    if (pileNum < 0 || pileNum >= numPiles) {
+      throw new IllegalArgumentException("Pile number is invalid");
+    }
+    return pileHeights[pileNum];
+  }
+
+  @Override
+  public boolean isCardVisible(int pileNum, int card)
+          throws IllegalArgumentException, IllegalStateException {
+    ensureGameStarted();
+    checkCardPosition(pileNum, card);
+    return card >= faceDownCounts[pileNum];
+  }
+
+  @Override
+  public Card getCardAt(int pileNum, int card)
+          throws IllegalArgumentException, IllegalStateException {
+    ensureGameStarted();
+    checkCardPosition(pileNum, card);
+    if (card < faceDownCounts[pileNum]) {
+      return null;
+    }
+    return PackedCard.unpack(cascades[pileNum * pileCapacity + card]);
+  }
+
+  private void checkCardPosition(int pileNum, int card) {
+    if (pileNum < 0 || pileNum >= numPiles) {
+      throw new IllegalArgumentException("Invalid pile number");
+    }
+    if (pileHeights[pileNum] == 0) {
+      throw new IllegalArgumentException("The specified pile is empty");
+    }
+    if (card < 0 || card >= pileHeights[pileNum]) {
+      throw new IllegalArgumentException("Invalid card index");
+    }
+  }
+
+  @Override
+  public Card getCardAt(int foundationPile)
+          throws IllegalArgumentException, IllegalStateException {
+    ensureGameStarted();
+    if (foundationPile < 0 || foundationPile >= foundationTops.length) {
+      throw new IllegalArgumentException("Invalid foundation pile number");
+    }
+    return PackedCard.unpack(foundationTops[foundationPile]);
+  }
+
+  @Override
+  public List<Card> getDrawCards() throws IllegalStateException {
+    ensureGameStarted();
+    List<Card> cards = new ArrayList<>(drawSize);
+    for (int i = 0; i < drawSize; i++) {
+      cards.add(PackedCard.unpack(drawCards[(drawHead + i) % numDraw]));
+    }
+    return Collections.unmodifiableList(cards);
+  }
+
+  @Override
+  public int getNumFoundations() throws IllegalStateException {
+    ensureGameStarted();
+    return foundationTops.length;
+  }
+
+  @Override
+  public DeckProfile getDeckProfile() throws IllegalStateException {
+    ensureGameStarted();
+    return profile;
+  }
+
+  private void ensureGameStarted() {
+    if (!isGameStarted) {
+      throw new IllegalStateException("Game hasn't been started yet");
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package cs3500.klondike.model.hw02;
+
+/**
+ * enum type to represent the 13 ranks of a card, from Ace (1) up to King (13).
+ */
+public enum Rank {
+  ACE("A"), TWO("2"), THREE("3"), FOUR("4"), FIVE("5"), SIX("6"), SEVEN("7"),
+  EIGHT("8"), NINE("9"), TEN("10"), JACK("J"), QUEEN("Q"), KING("K");
+
+  // shared lookup table, so that values() does not clone an array on every lookup
+  private static final Rank[] BY_VALUE = values();
+
+  private final String symbol;
+  private final int value;
+
+  Rank(String symbol) {
+    this.symbol = symbol;
+    this.value = ordinal() + 1;
+  }
+
+  /**
+   * the String symbol of the rank, as it is rendered on a card.
+   * @return the rank symbol, e.g. "A" or "10"
+   */
+  public String getSymbol() {
+    return symbol;
+  }
+
+  /**
+   * get the number value of the rank.
+   * @return 1 for an Ace, up to 13 for a King
+   */
+  public int getValue() {
+    return value;
+  }
+
+  /**
+   * find the rank with the given number value.
+   * @param value the number value, from 1 to 13
+   * @return the matching rank
+   * @throws IllegalArgumentException if there is no such rank
+   */
+  public static Rank fromValue(int value) {
+    if (value < 1 || value > BY_VALUE.length) {
+      throw new IllegalArgumentException("Invalid rank: " + value);
+    }
+    return BY_VALUE[value - 1];
+  }
+
+  /**
+   * find the rank with the given symbol.
+   * @param symbol the rank symbol, e.g. "A" or "10"
+   * @return the matching rank
+   * @throws IllegalArgumentException if there is no such rank
+   */
+  public static Rank fromSymbol(String symbol) {
+    if (symbol == null) {
+      throw new IllegalArgumentException("Invalid card value");
+    }
+    switch (symbol) {
+      case "A":
+        return ACE;
+      case "J":
+        return JACK;
+      case "Q":
+        return QUEEN;
+      case "K":
+        return KING;
+      default:
+        break;
+    }
+    // the remaining symbols are the numbers 2 through 10
+    if (symbol.length() == 1 && symbol.charAt(0) >= '2' && symbol.charAt(0) <= '9') {
+      return BY_VALUE[symbol.charAt(0) - '1'];
+    }
+    if (symbol.equals("10")) {
+      return TEN;
+    }
+    throw new IllegalArgumentException("Invalid card value");
+  }
+}
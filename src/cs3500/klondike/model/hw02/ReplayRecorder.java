@@ -0,0 +1,379 @@
+package cs3500.klondike.model.hw02;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A {@link KlondikeModel} that plays on another model and appends every deal and every
+ * successful move to a binary replay log, which a {@link Replayer} can stream back to
+ * rebuild the game at any move. A move that the model rejects is not logged.
+ *
+ * <p>The log is a sequence of records, one game after another, so logs can be appended
+ * to and joined freely. Every record starts with an unsigned LEB128 varint (7 bits per
+ * byte, low bits first) holding {@code a << 3 | kind}, where {@code a} is the record's
+ * first number; any further numbers follow as varints:
+ * <pre>
+ *   kind 0  a game starts; a is the layout version, 1, followed by
+ *             numPiles, numDraw, and one of:
+ *             0, deckSize, then deckSize cards      dealt in this order
+ *             1, 8-byte deal number, suits, run, copies
+ *                                                   dealt by {@link Deals} from the deck of
+ *                                                   the suits (a bit per suit ordinal),
+ *                                                   Aces to run, copies of each card
+ *   kind 1  movePile(a, count, dest)
+ *   kind 2  moveDraw(a)
+ *   kind 3  moveToFoundation(a, foundation)
+ *   kind 4  moveDrawToFoundation(a)
+ *   kind 5  discardDraw(), with a = 0
+ * </pre>
+ * Cards are one byte, as packed by {@link PackedCard}, and the deal number is big-endian.
+ * The move kinds are those of {@link Moves}. A move takes 1 to 3 bytes, and a standard
+ * game dealt by number about 14 bytes to start.
+ *
+ * <p>Records are gathered in a buffer and written to the channel when it fills, on
+ * {@link #flush()} and on {@link #close()}. The move methods cannot throw
+ * {@link IOException}, so a failed write surfaces from them as an
+ * {@link UncheckedIOException}, after the move itself was made.
+ */
+public final class ReplayRecorder implements KlondikeModel, Flushable, Closeable {
+  /**
+   * the version of the game records written.
+   */
+  static final int VERSION = 1;
+  static final int START = 0;
+  static final int IN_ORDER = 0;
+  static final int BY_NUMBER = 1;
+
+  private static final KlondikeCard.Suits[] SUITS = KlondikeCard.Suits.values();
+  // a recorder plays a single game, whose log this holds many moves of
+  private static final int BUFFER_SIZE = 1 << 12;
+  // the buffer is written out once it holds this much
+  private static final int FLUSH_AT = BUFFER_SIZE - 64;
+  // the most bytes of a move record: three varints of at most five bytes each
+  private static final int MAX_MOVE = 16;
+
+  private final KlondikeModel model;
+  private final WritableByteChannel out;
+  private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+  /**
+   * a recorder of the games played on the given model, logged to the given channel.
+   * @param model the model to play on, not yet started
+   * @param out   where to write the log
+   * @throws IllegalArgumentException if either argument is null
+   */
+  public ReplayRecorder(KlondikeModel model, WritableByteChannel out) {
+    if (model == null || out == null) {
+      throw new IllegalArgumentException("Model and channel cannot be null");
+    }
+    this.model = model;
+    this.out = out;
+  }
+
+  /**
+   * a recorder of the games played on the given model, appended to the given file, which
+   * is created if it does not exist.
+   * @param model the model to play on, not yet started
+   * @param file  the log file
+   * @return the recorder, which owns the open file
+   * @throws IOException              if the file cannot be opened
+   * @throws IllegalArgumentException if the model is null
+   */
+  public static ReplayRecorder append(KlondikeModel model, Path file) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    return new ReplayRecorder(model, channel);
+  }
+
+  @Override
+  public List<Card> getDeck() {
+    return model.getDeck();
+  }
+
+  /**
+   * deal a new game on the model and log it. A shuffled deal is dealt with a random deal
+   * number by {@link #startGame(List, long, int, int)}, so that the log can name it.
+   * @throws IllegalStateException    as {@link KlondikeModel#startGame}
+   * @throws IllegalArgumentException as {@link KlondikeModel#startGame}
+   * @throws UncheckedIOException     if the log cannot be written
+   */
+  @Override
+  public void startGame(List<Card> deck, boolean shuffle, int numPiles, int numDraw) {
+    if (shuffle) {
+      startGame(deck, Deals.randomDealNumber(), numPiles, numDraw);
+      return;
+    }
+    model.startGame(deck, false, numPiles, numDraw);
+    reserve(30 + deck.size());
+    putStart(numPiles, numDraw);
+    putVarint(IN_ORDER);
+    putVarint(deck.size());
+    for (int i = 0; i < deck.size(); i++) {
+      buffer.put(PackedCard.pack(deck.get(i)));
+    }
+    logged();
+  }
+
+  /**
+   * deal a new game on the model from the given deck, in the order of the given deal
+   * number as {@link BasicKlondike#startGame(List, long, int, int)} deals it, and log it.
+   * @param deck       the cards to be dealt, in any order; the list is not changed
+   * @param dealNumber the deal number
+   * @param numPiles   number of piles to be dealt
+   * @param numDraw    maximum number of draw cards available at a time
+   * @throws IllegalStateException    if the game has already started
+   * @throws IllegalArgumentException if the model rejects the deck or sizes
+   * @throws UncheckedIOException     if the log cannot be written
+   */
+  public void startGame(List<Card> deck, long dealNumber, int numPiles, int numDraw) {
+    if (deck == null) {
+      throw new IllegalArgumentException("Deck is null or invalid");
+    }
+    // the deal packs every card, so reject the cards it cannot pack before the model sees
+    // the deck, as the model itself would
+    for (int i = 0; i < deck.size(); i++) {
+      Card card = deck.get(i);
+      if (card == null) {
+        throw new IllegalArgumentException("Provided deck is not valid for Klondike: card "
+                + i + " is null");
+      }
+      if (card.getRankValue() < 1 || card.getRankValue() > 15) {
+        throw new IllegalArgumentException("Provided deck is not valid for Klondike: card "
+                + i + " has rank " + card.getRankValue());
+      }
+    }
+    byte[] packed = Deals.deal(deck, dealNumber);
+    List<Card> dealt = new ArrayList<>(packed.length);
+    for (byte card : packed) {
+      dealt.add(PackedCard.unpack(card));
+    }
+    model.startGame(dealt, false, numPiles, numDraw);
+
+    // a valid deck is every card of its suits up to its run, the same number of times,
+    // but a model may take other decks, which are logged card by card
+    DeckProfile profile = DeckProfile.of(deck);
+    int suits = 0;
+    for (KlondikeCard.Suits suit : profile.getSuits()) {
+      suits |= 1 << suit.ordinal();
+    }
+    int run = profile.getRunLength();
+    int copies = profile.getNumDecks();
+    if (!Arrays.equals(packed, Deals.deal(deck(suits, run, copies), dealNumber))) {
+      reserve(30 + packed.length);
+      putStart(numPiles, numDraw);
+      putVarint(IN_ORDER);
+      putVarint(packed.length);
+      buffer.put(packed);
+    } else {
+      reserve(50);
+      putStart(numPiles, numDraw);
+      putVarint(BY_NUMBER);
+      buffer.putLong(dealNumber);
+      putVarint(suits);
+      putVarint(run);
+      putVarint(copies);
+    }
+    logged();
+  }
+
+  /**
+   * the deck of a game dealt by number, as logged.
+   * @param suits  a bit per suit ordinal, for the suits in the deck
+   * @param run    the highest rank of every suit
+   * @param copies the number of copies of each card
+   * @return the deck, in suit then rank order
+   */
+  static List<Card> deck(int suits, int run, int copies) {
+    List<Card> deck = new ArrayList<>();
+    for (KlondikeCard.Suits suit : SUITS) {
+      if ((suits & 1 << suit.ordinal()) != 0) {
+        for (int rank = 1; rank <= run; rank++) {
+          for (int copy = 0; copy < copies; copy++) {
+            deck.add(KlondikeCard.of(suit, Rank.fromValue(rank)));
+          }
+        }
+      }
+    }
+    return deck;
+  }
+
+  @Override
+  public void movePile(int srcPile, int numCards, int destPile) {
+    model.movePile(srcPile, numCards, destPile);
+    reserve(MAX_MOVE);
+    putVarint((long) srcPile << 3 | Moves.PILE);
+    putVarint(numCards);
+    putVarint(destPile);
+    logged();
+  }
+
+  @Override
+  public void moveDraw(int destPile) {
+    model.moveDraw(destPile);
+    reserve(MAX_MOVE);
+    putVarint((long) destPile << 3 | Moves.DRAW);
+    logged();
+  }
+
+  @Override
+  public void moveToFoundation(int srcPile, int foundationPile) {
+    model.moveToFoundation(srcPile, foundationPile);
+    reserve(MAX_MOVE);
+    putVarint((long) srcPile << 3 | Moves.PILE_TO_FOUNDATION);
+    putVarint(foundationPile);
+    logged();
+  }
+
+  @Override
+  public void moveDrawToFoundation(int foundationPile) {
+    model.moveDrawToFoundation(foundationPile);
+    reserve(MAX_MOVE);
+    putVarint((long) foundationPile << 3 | Moves.DRAW_TO_FOUNDATION);
+    logged();
+  }
+
+  @Override
+  public void discardDraw() {
+    model.discardDraw();
+    reserve(MAX_MOVE);
+    buffer.put((byte) Moves.DISCARD);
+    logged();
+  }
+
+  @Override
+  public int getNumRows() {
+    return model.getNumRows();
+  }
+
+  @Override
+  public int getNumPiles() {
+    return model.getNumPiles();
+  }
+
+  @Override
+  public int getNumDraw() {
+    return model.getNumDraw();
+  }
+
+  @Override
+  public boolean isGameOver() {
+    return model.isGameOver();
+  }
+
+  @Override
+  public int getScore() {
+    return model.getScore();
+  }
+
+  @Override
+  public int getPileHeight(int pileNum) {
+    return model.getPileHeight(pileNum);
+  }
+
+  @Override
+  public boolean isCardVisible(int pileNum, int card) {
+    return model.isCardVisible(pileNum, card);
+  }
+
+  @Override
+  public Card getCardAt(int pileNum, int card) {
+    return model.getCardAt(pileNum, card);
+  }
+
+  @Override
+  public Card getCardAt(int foundationPile) {
+    return model.getCardAt(foundationPile);
+  }
+
+  @Override
+  public List<Card> getDrawCards() {
+    return model.getDrawCards();
+  }
+
+  @Override
+  public int getNumFoundations() {
+    return model.getNumFoundations();
+  }
+
+  @Override
+  public DeckProfile getDeckProfile() {
+    return model.getDeckProfile();
+  }
+
+  /**
+   * write every record logged so far to the channel.
+   * @throws IOException if the channel fails to write
+   */
+  @Override
+  public void flush() throws IOException {
+    buffer.flip();
+    try {
+      while (buffer.hasRemaining()) {
+        out.write(buffer);
+      }
+    } finally {
+      buffer.compact();
+    }
+  }
+
+  /**
+   * write every record logged so far, and close the channel.
+   * @throws IOException if the channel fails to write or close
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      out.close();
+    }
+  }
+
+  private void putStart(int numPiles, int numDraw) {
+    putVarint(VERSION << 3 | START);
+    putVarint(numPiles);
+    putVarint(numDraw);
+  }
+
+  private void putVarint(long value) {
+    while ((value & ~0x7FL) != 0) {
+      buffer.put((byte) (value & 0x7F | 0x80));
+      value >>>= 7;
+    }
+    buffer.put((byte) value);
+  }
+
+  // grow the buffer if it has no room for a record of the given number of bytes, which
+  // it only lacks while the channel is failing and the buffer cannot be written out
+  private void reserve(int bytes) {
+    if (buffer.remaining() < bytes) {
+      ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2,
+              buffer.position() + bytes));
+      buffer.flip();
+      grown.put(buffer);
+      buffer = grown;
+    }
+  }
+
+  // write the buffer out once it is full; a record is always in the buffer before its
+  // write can fail, so a later flush still writes it
+  private void logged() {
+    if (buffer.position() >= FLUSH_AT) {
+      try {
+        flush();
+      } catch (IOException e) {
+        throw new UncheckedIOException("Cannot write the replay log", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,312 @@
+package cs3500.klondike.model.hw02;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams a replay log written by {@link ReplayRecorder} back through new
+ * {@link BasicKlondike} games, one game at a time, to rebuild each game at its end or at
+ * any move along the way.
+ *
+ * <p>The log is read through one reused buffer, so a log of any length is replayed in
+ * constant memory. A trusted log is replayed without any of the checks of the move
+ * methods, as every move in it was made by a model that already checked it; a log that
+ * may have been altered should be replayed untrusted, which makes each move through the
+ * public move methods and reports the first one the game rejects. Either way the deck of
+ * each game is checked when it is dealt, and the rebuilt games can undo the replayed
+ * moves.
+ */
+public final class Replayer implements Closeable {
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final ReadableByteChannel in;
+  private final boolean trusted;
+  private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+  private boolean exhausted;
+  // the record that starts the next game, read ahead while finishing the last one, or -1
+  private long nextStart = -1;
+  private int gameNumber;
+
+  /**
+   * a replayer of the log read from the given channel.
+   * @param in      the log
+   * @param trusted true to make the logged moves without checking them
+   * @throws IllegalArgumentException if the channel is null
+   */
+  public Replayer(ReadableByteChannel in, boolean trusted) {
+    if (in == null) {
+      throw new IllegalArgumentException("Channel cannot be null");
+    }
+    this.in = in;
+    this.trusted = trusted;
+    buffer.flip();
+  }
+
+  /**
+   * a replayer of the log in the given file.
+   * @param file    the log file
+   * @param trusted true to make the logged moves without checking them
+   * @return the replayer, which owns the open file
+   * @throws IOException if the file cannot be opened
+   */
+  public static Replayer open(Path file, boolean trusted) throws IOException {
+    return new Replayer(FileChannel.open(file, StandardOpenOption.READ), trusted);
+  }
+
+  /**
+   * rebuild the next game of the log, with every one of its moves made.
+   * @return the game, or null if the log has no more games
+   * @throws IOException              if the channel fails to read
+   * @throws IllegalArgumentException if the log is not a replay log of a known version,
+   *                                  is truncated, or (untrusted) has a move its game
+   *                                  rejects
+   */
+  public BasicKlondike next() throws IOException {
+    return next(Long.MAX_VALUE);
+  }
+
+  /**
+   * rebuild the next game of the log as it was after the given number of its moves. The
+   * rest of its moves are read past without being made.
+   * @param maxMoves the number of moves to make, at most
+   * @return the game, or null if the log has no more games
+   * @throws IOException              if the channel fails to read
+   * @throws IllegalArgumentException if the log is not a replay log of a known version,
+   *                                  is truncated, or (untrusted) has a move its game
+   *                                  rejects
+   */
+  public BasicKlondike next(long maxMoves) throws IOException {
+    if (!startNext()) {
+      return null;
+    }
+    BasicKlondike model = deal();
+    long moves = 0;
+    for (long record = nextRecord(); record >= 0; record = nextRecord()) {
+      int kind = (int) (record & 7);
+      int a = (int) (record >>> 3);
+      int move;
+      switch (kind) {
+        case ReplayRecorder.START:
+          nextStart = record;
+          return model;
+        case Moves.PILE:
+          int count = varint();
+          move = Moves.movePile(a, count, varint());
+          break;
+        case Moves.DRAW:
+          move = Moves.moveDraw(a);
+          break;
+        case Moves.PILE_TO_FOUNDATION:
+          move = Moves.moveToFoundation(a, varint());
+          break;
+        case Moves.DRAW_TO_FOUNDATION:
+          move = Moves.moveDrawToFoundation(a);
+          break;
+        case Moves.DISCARD:
+          move = Moves.discardDraw();
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown replay record kind " + kind + " in game "
+                  + gameNumber);
+      }
+      if (moves < maxMoves) {
+        play(model, move, moves);
+        moves++;
+      }
+    }
+    return model;
+  }
+
+  /**
+   * read past the next game of the log without dealing it or making its moves.
+   * @return false if the log has no more games
+   * @throws IOException              if the channel fails to read
+   * @throws IllegalArgumentException if the log is not a replay log of a known version,
+   *                                  or is truncated
+   */
+  public boolean skip() throws IOException {
+    if (!startNext()) {
+      return false;
+    }
+    skipDeal();
+    for (long record = nextRecord(); record >= 0; record = nextRecord()) {
+      int kind = (int) (record & 7);
+      if (kind == ReplayRecorder.START) {
+        nextStart = record;
+        return true;
+      } else if (kind == Moves.PILE) {
+        varint();
+        varint();
+      } else if (kind == Moves.PILE_TO_FOUNDATION) {
+        varint();
+      }
+    }
+    return true;
+  }
+
+  /**
+   * the number of games started so far by {@link #next} and {@link #skip}.
+   * @return the number of games
+   */
+  public int getGameCount() {
+    return gameNumber;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  // read up to the start of the next game; false at the end of the log
+  private boolean startNext() throws IOException {
+    long record = nextStart >= 0 ? nextStart : nextRecord();
+    nextStart = -1;
+    if (record < 0) {
+      return false;
+    }
+    if ((record & 7) != ReplayRecorder.START) {
+      throw new IllegalArgumentException("Replay log does not start with a game");
+    }
+    if (record >>> 3 != ReplayRecorder.VERSION) {
+      throw new IllegalArgumentException("Unknown replay log version " + (record >>> 3));
+    }
+    gameNumber++;
+    return true;
+  }
+
+  // deal the game of the start record just read
+  private BasicKlondike deal() throws IOException {
+    int numPiles = varint();
+    int numDraw = varint();
+    List<Card> deck;
+    long dealNumber = 0;
+    int mode = varint();
+    if (mode == ReplayRecorder.IN_ORDER) {
+      int size = varint();
+      deck = new ArrayList<>(Math.min(size, 1024));
+      for (int i = 0; i < size; i++) {
+        byte card = get();
+        int rank = PackedCard.rank(card);
+        if ((card & 0xC0) != 0 || rank < 1 || rank > 13) {
+          throw new IllegalArgumentException("Replay log has an invalid card in game "
+                  + gameNumber);
+        }
+        deck.add(PackedCard.unpack(card));
+      }
+    } else if (mode == ReplayRecorder.BY_NUMBER) {
+      for (int i = 0; i < 8; i++) {
+        dealNumber = dealNumber << 8 | (get() & 0xFF);
+      }
+      int suits = varint();
+      int run = varint();
+      if (run < 1 || run > Rank.values().length) {
+        throw new IllegalArgumentException("Replay log has an invalid deck in game "
+                + gameNumber);
+      }
+      deck = ReplayRecorder.deck(suits, run, varint());
+    } else {
+      throw new IllegalArgumentException("Unknown deal kind " + mode + " in game "
+              + gameNumber);
+    }
+
+    BasicKlondike model = new BasicKlondike(DeckProfile.of(deck).getNumDecks());
+    try {
+      if (mode == ReplayRecorder.IN_ORDER) {
+        model.startGame(deck, false, numPiles, numDraw);
+      } else {
+        model.startGame(deck, dealNumber, numPiles, numDraw);
+      }
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Replay log cannot deal game " + gameNumber + ": "
+              + e.getMessage(), e);
+    }
+    return model;
+  }
+
+  private void skipDeal() throws IOException {
+    varint();
+    varint();
+    int mode = varint();
+    if (mode == ReplayRecorder.IN_ORDER) {
+      for (int size = varint(); size > 0; size--) {
+        get();
+      }
+    } else {
+      for (int i = 0; i < 8; i++) {
+        get();
+      }
+      varint();
+      varint();
+      varint();
+    }
+  }
+
+  private void play(BasicKlondike model, int move, long moves) {
+    if (trusted) {
+      model.applyTrusted(move);
+      return;
+    }
+    try {
+      model.apply(move);
+    } catch (IllegalArgumentException | IllegalStateException e) {
+      throw new IllegalArgumentException("Replay log move " + moves + " of game " + gameNumber
+              + " (" + Moves.toString(move) + ") is not allowed: " + e.getMessage(), e);
+    }
+  }
+
+  // the next record's first varint, or -1 at the end of the log
+  private long nextRecord() throws IOException {
+    if (!buffer.hasRemaining() && !fill()) {
+      return -1;
+    }
+    return varint();
+  }
+
+  private int varint() throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      byte b = get();
+      value |= (long) (b & 0x7F) << shift;
+      if (b >= 0) {
+        if (value > Integer.MAX_VALUE) {
+          break;
+        }
+        return (int) value;
+      }
+    }
+    throw new IllegalArgumentException("Replay log has an invalid number in game "
+            + gameNumber);
+  }
+
+  private byte get() throws IOException {
+    if (!buffer.hasRemaining() && !fill()) {
+      throw new IllegalArgumentException("Replay log is truncated in game " + gameNumber);
+    }
+    return buffer.get();
+  }
+
+  // read more of the log into the empty buffer
+  private boolean fill() throws IOException {
+    if (exhausted) {
+      return false;
+    }
+    buffer.clear();
+    int read;
+    do {
+      read = in.read(buffer);
+    } while (read == 0);
+    buffer.flip();
+    if (read < 0) {
+      exhausted = true;
+      return false;
+    }
+    return true;
+  }
+}
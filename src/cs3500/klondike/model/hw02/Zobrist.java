@@ -0,0 +1,42 @@
+package cs3500.klondike.model.hw02;
+
+/**
+ * Zobrist keys for hashing a game position: one pseudo-random 64-bit key per card, place
+ * and face. A position hashes to the XOR of the keys of all its cards, so a move updates
+ * the hash by XOR-ing out the keys of the cards that left a place and XOR-ing in the keys
+ * of where they arrived.
+ *
+ * <p>Instead of a table, each key is computed on demand by mixing its coordinates, so the
+ * keys take no memory and are the same in every game and every JVM.
+ */
+final class Zobrist {
+  static final int CASCADE = 1;
+  static final int FOUNDATION = 2;
+  static final int DRAW = 3;
+  static final int STOCK = 4;
+
+  private Zobrist() {
+    // static helpers only
+  }
+
+  /**
+   * the key of a card at a place.
+   * @param card   the card
+   * @param zone   one of {@link #CASCADE}, {@link #FOUNDATION}, {@link #DRAW} and
+   *               {@link #STOCK}
+   * @param pile   the pile within the zone
+   * @param row    the position within the pile
+   * @param faceUp whether the card is face-up
+   * @return the key
+   */
+  static long key(Card card, int zone, int pile, int row, boolean faceUp) {
+    long coordinates = (card.getSuit().ordinal() << 4 | card.getRankValue())
+            | (long) zone << 8 | (long) (pile & 0xFFF) << 12 | (long) (row & 0xFFFF) << 24
+            | (faceUp ? 1L << 40 : 0L);
+    // the SplitMix64 finalizer, on coordinates offset by a fixed seed
+    long z = coordinates + 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,262 @@
+package cs3500.klondike.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One thread of a {@link KlondikeServer}, which plays the games of many sessions on one
+ * selector.
+ *
+ * <p>Every connection is non-blocking. When a connection has bytes, they are read into a
+ * buffer shared by every session of the loop and played at once; the responses to all of
+ * them are encoded into a second shared buffer and written with as few writes as the
+ * connection takes. Output a connection does not take is kept by its session, which then
+ * waits for the connection to be writable and reads no more commands until the output is
+ * gone, so a client that does not read cannot make the server hold more than the
+ * responses to one read. Sessions that send nothing for longer than the idle timeout are
+ * closed.
+ */
+final class EventLoop implements Runnable {
+  private static final int BUFFER_SIZE = 1 << 14;
+  private static final byte[] TIMED_OUT = "Session timed out\n"
+          .getBytes(StandardCharsets.UTF_8);
+
+  private final KlondikeServer server;
+  private final Selector selector;
+  private final Queue<SocketChannel> incoming = new ConcurrentLinkedQueue<>();
+  private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+  private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+  private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+  private final long idleNanos;
+  private volatile boolean running = true;
+
+  /**
+   * a loop for the given server.
+   * @param server    the server, for its game sizes and to hand it accepted connections
+   * @param idleNanos how long a session may send nothing before it is closed
+   * @throws IOException if the selector cannot be opened
+   */
+  EventLoop(KlondikeServer server, long idleNanos) throws IOException {
+    this.server = server;
+    this.selector = Selector.open();
+    this.idleNanos = idleNanos;
+  }
+
+  /**
+   * accept the connections of the given listening channel on this loop.
+   * @param listener the server channel, non-blocking
+   * @throws IOException if it cannot be registered
+   */
+  void listen(ServerSocketChannel listener) throws IOException {
+    listener.register(selector, SelectionKey.OP_ACCEPT);
+  }
+
+  /**
+   * hand this loop a new connection to play a session on. Safe to call from any thread.
+   * @param channel the accepted connection
+   */
+  void add(SocketChannel channel) {
+    incoming.add(channel);
+    selector.wakeup();
+  }
+
+  /**
+   * stop the loop and close its connections, from any thread.
+   */
+  void stop() {
+    running = false;
+    selector.wakeup();
+  }
+
+  @Override
+  public void run() {
+    // check for idle sessions a few times per timeout, and at least once a second
+    long sweepMillis = Math.max(10,
+            Math.min(1000, TimeUnit.NANOSECONDS.toMillis(idleNanos) / 4));
+    long nextSweep = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sweepMillis);
+    try {
+      while (running) {
+        selector.select(sweepMillis);
+        long now = System.nanoTime();
+        registerIncoming(now);
+        Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+        while (selected.hasNext()) {
+          SelectionKey key = selected.next();
+          selected.remove();
+          if (!key.isValid()) {
+            continue;
+          }
+          if (key.isAcceptable()) {
+            accept(key);
+          } else {
+            handle((Session) key.attachment(), now);
+          }
+        }
+        if (now - nextSweep >= 0) {
+          closeIdle(now);
+          resumeAccepting();
+          nextSweep = now + TimeUnit.MILLISECONDS.toNanos(sweepMillis);
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Event loop failed", e);
+    } finally {
+      for (SelectionKey key : selector.keys()) {
+        closeQuietly(key);
+      }
+      try {
+        selector.close();
+      } catch (IOException e) {
+        // nothing left to do with it
+      }
+    }
+  }
+
+  // accept every waiting connection; if the process is out of descriptors, stop accepting
+  // until the next sweep rather than spin on a listener that stays ready
+  private void accept(SelectionKey key) {
+    ServerSocketChannel listener = (ServerSocketChannel) key.channel();
+    try {
+      SocketChannel channel;
+      while ((channel = listener.accept()) != null) {
+        server.dispatch(channel);
+      }
+    } catch (IOException e) {
+      key.interestOps(0);
+    }
+  }
+
+  private void resumeAccepting() {
+    for (SelectionKey key : selector.keys()) {
+      if (key.isValid() && key.channel() instanceof ServerSocketChannel) {
+        key.interestOps(SelectionKey.OP_ACCEPT);
+      }
+    }
+  }
+
+  private void registerIncoming(long now) {
+    SocketChannel channel;
+    while ((channel = incoming.poll()) != null) {
+      SelectionKey key = null;
+      try {
+        channel.configureBlocking(false);
+        key = channel.register(selector, SelectionKey.OP_READ);
+        Session session = new Session(channel, key, server.numPiles, server.numDraw, now);
+        key.attach(session);
+        server.sessionOpened();
+        send(session);
+      } catch (IOException | RuntimeException e) {
+        if (key != null) {
+          closeQuietly(key);
+        } else {
+          try {
+            channel.close();
+          } catch (IOException ignored) {
+            // already failed
+          }
+        }
+      }
+    }
+  }
+
+  private void handle(Session session, long now) {
+    try {
+      if (session.key.isWritable()) {
+        if (!session.writeUnsent()) {
+          return;
+        }
+      }
+      if (session.key.isReadable()) {
+        readBuffer.clear();
+        int read = session.channel.read(readBuffer);
+        if (read < 0) {
+          session.endOfInput();
+        } else if (read > 0) {
+          readBuffer.flip();
+          session.lastActive = now;
+          session.consume(readBuffer);
+        }
+      }
+      send(session);
+    } catch (IOException | RuntimeException e) {
+      closeQuietly(session.key);
+    }
+  }
+
+  // encode and write the session's new responses, keep what the connection does not
+  // take, and choose what to wait for next
+  private void send(Session session) throws IOException {
+    StringBuilder text = session.text;
+    if (text.length() > 0) {
+      CharBuffer chars = CharBuffer.wrap(text);
+      encoder.reset();
+      boolean done = false;
+      while (!done) {
+        writeBuffer.clear();
+        CoderResult result = encoder.encode(chars, writeBuffer, true);
+        if (result.isError()) {
+          result.throwException();
+        }
+        done = result.isUnderflow() && encoder.flush(writeBuffer).isUnderflow();
+        writeBuffer.flip();
+        if (!session.hasUnsent()) {
+          session.channel.write(writeBuffer);
+        }
+        if (writeBuffer.hasRemaining()) {
+          session.keep(writeBuffer);
+        }
+      }
+      text.setLength(0);
+    }
+    if (session.hasUnsent()) {
+      session.key.interestOps(SelectionKey.OP_WRITE);
+    } else if (session.closing) {
+      closeQuietly(session.key);
+    } else {
+      session.key.interestOps(SelectionKey.OP_READ);
+    }
+  }
+
+  private void closeIdle(long now) {
+    for (SelectionKey key : selector.keys()) {
+      Object attachment = key.attachment();
+      if (attachment instanceof Session && key.isValid()
+              && now - ((Session) attachment).lastActive > idleNanos) {
+        Session session = (Session) attachment;
+        try {
+          if (!session.hasUnsent()) {
+            session.channel.write(ByteBuffer.wrap(TIMED_OUT));
+          }
+        } catch (IOException e) {
+          // closing anyway
+        }
+        closeQuietly(key);
+      }
+    }
+  }
+
+  private void closeQuietly(SelectionKey key) {
+    key.cancel();
+    if (key.attachment() instanceof Session) {
+      key.attach(null);
+      server.sessionClosed();
+    }
+    try {
+      key.channel().close();
+    } catch (IOException e) {
+      // nothing left to do with it
+    }
+  }
+}
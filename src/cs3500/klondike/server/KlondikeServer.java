@@ -0,0 +1,214 @@
+package cs3500.klondike.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import cs3500.klondike.controller.KlondikeTextualController;
+import cs3500.klondike.model.hw02.BasicKlondike;
+
+/**
+ * Hosts many games of Klondike at once for clients on a local TCP or Unix-domain socket.
+ * Each connection is a session with its own {@link BasicKlondike}, dealt at random when
+ * the client connects and played with the commands of
+ * {@link KlondikeTextualController}, with the same responses. The connection is closed
+ * when the game ends, when the client quits or stops sending, or after the idle timeout.
+ *
+ * <p>Sessions are not given a thread each. A small, fixed number of {@link EventLoop}s,
+ * one thread and one selector each, play every session on non-blocking connections: a
+ * session only takes a thread while bytes it was sent are being played, and holds no
+ * buffers while it waits. The first loop also accepts connections and hands them to the
+ * loops in turn, and a session stays on its loop for its whole life, so no game is ever
+ * touched by two threads. Tens of thousands of sessions then cost little more than their
+ * games and connections.
+ */
+public final class KlondikeServer implements Closeable {
+  final int numPiles;
+  final int numDraw;
+
+  private final SocketAddress address;
+  private final EventLoop[] loops;
+  private final Thread[] threads;
+  private ServerSocketChannel listener;
+  // the loop the next connection goes to; only the accepting loop's thread changes it
+  private int nextLoop;
+  private final AtomicInteger openSessions = new AtomicInteger();
+  private final LongAdder sessionsStarted = new LongAdder();
+
+  /**
+   * a server, not yet started, for the given address and game sizes.
+   * @param address           a TCP address or a {@link UnixDomainSocketAddress}
+   * @param numLoops          the number of threads to play sessions on
+   * @param numPiles          the number of piles of every game
+   * @param numDraw           the number of draw cards of every game
+   * @param idleTimeoutMillis how long a session may send nothing before it is closed
+   * @throws IllegalArgumentException if the address is null, a game cannot be dealt with
+   *                                  the given sizes, or a number is not positive
+   * @throws IOException              if the selectors cannot be opened
+   */
+  public KlondikeServer(SocketAddress address, int numLoops, int numPiles, int numDraw,
+                        long idleTimeoutMillis) throws IOException {
+    if (address == null || numLoops <= 0 || idleTimeoutMillis <= 0) {
+      throw new IllegalArgumentException("Invalid server address, loops or timeout");
+    }
+    BasicKlondike trial = new BasicKlondike();
+    trial.startGame(trial.getDeck(), false, numPiles, numDraw);
+    this.address = address;
+    this.numPiles = numPiles;
+    this.numDraw = numDraw;
+    this.loops = new EventLoop[numLoops];
+    this.threads = new Thread[numLoops];
+    for (int i = 0; i < numLoops; i++) {
+      loops[i] = new EventLoop(this, TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis));
+    }
+  }
+
+  /**
+   * bind the address and start playing sessions.
+   * @throws IOException           if the address cannot be bound
+   * @throws IllegalStateException if the server has already started
+   */
+  public synchronized void start() throws IOException {
+    if (listener != null) {
+      throw new IllegalStateException("Server has already started");
+    }
+    listener = address instanceof UnixDomainSocketAddress
+            ? ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+            : ServerSocketChannel.open();
+    listener.bind(address, 4096);
+    listener.configureBlocking(false);
+    loops[0].listen(listener);
+    for (int i = 0; i < loops.length; i++) {
+      threads[i] = new Thread(loops[i], "klondike-loop-" + i);
+      threads[i].start();
+    }
+  }
+
+  /**
+   * the address the server is bound to, e.g. to learn the port when bound to port 0.
+   * @return the bound address
+   * @throws IOException           if the address cannot be read
+   * @throws IllegalStateException if the server has not started
+   */
+  public synchronized SocketAddress getLocalAddress() throws IOException {
+    if (listener == null) {
+      throw new IllegalStateException("Server has not started");
+    }
+    return listener.getLocalAddress();
+  }
+
+  /**
+   * the number of sessions open now.
+   * @return the number of open sessions
+   */
+  public int getOpenSessions() {
+    return openSessions.get();
+  }
+
+  /**
+   * the number of sessions started since the server started.
+   * @return the number of sessions started
+   */
+  public long getSessionsStarted() {
+    return sessionsStarted.sum();
+  }
+
+  /**
+   * stop accepting, close every session and wait for the loops to finish. A Unix-domain
+   * socket file is deleted.
+   * @throws IOException if the listening socket fails to close
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    for (EventLoop loop : loops) {
+      loop.stop();
+    }
+    for (Thread thread : threads) {
+      if (thread != null) {
+        try {
+          thread.join();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+      }
+    }
+    if (listener != null) {
+      listener.close();
+      if (address instanceof UnixDomainSocketAddress) {
+        Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+      }
+    }
+  }
+
+  // hand an accepted connection to the next loop; called on the accepting loop's thread
+  void dispatch(SocketChannel channel) {
+    loops[nextLoop].add(channel);
+    nextLoop = (nextLoop + 1) % loops.length;
+  }
+
+  void sessionOpened() {
+    openSessions.incrementAndGet();
+    sessionsStarted.increment();
+  }
+
+  void sessionClosed() {
+    openSessions.decrementAndGet();
+  }
+
+  /**
+   * run a server until the process is stopped.
+   * @param args a port on the loopback address or a Unix-domain socket path, then
+   *             optionally the number of loops, the idle timeout in seconds, and the
+   *             number of piles and draw cards
+   * @throws IOException if the server cannot start
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      System.err.println("usage: KlondikeServer <port | socket-path> [loops] [idle-seconds]"
+              + " [piles] [draw]");
+      System.exit(2);
+    }
+    int numLoops = args.length > 1 ? Integer.parseInt(args[1])
+            : Runtime.getRuntime().availableProcessors();
+    long idleSeconds = args.length > 2 ? Long.parseLong(args[2]) : 300;
+    int numPiles = args.length > 3 ? Integer.parseInt(args[3]) : 7;
+    int numDraw = args.length > 4 ? Integer.parseInt(args[4]) : 3;
+    KlondikeServer server = new KlondikeServer(address(args[0]), numLoops, numPiles, numDraw,
+            TimeUnit.SECONDS.toMillis(idleSeconds));
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      try {
+        server.close();
+      } catch (IOException e) {
+        // the process is ending
+      }
+    }));
+    server.start();
+    System.out.println("Klondike server on " + server.getLocalAddress() + " with " + numLoops
+            + " loops");
+  }
+
+  /**
+   * the address named by a command-line argument: a port number on the loopback address,
+   * or else the path of a Unix-domain socket.
+   * @param arg the argument
+   * @return the address
+   */
+  static SocketAddress address(String arg) {
+    try {
+      return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(arg));
+    } catch (NumberFormatException e) {
+      return UnixDomainSocketAddress.of(arg);
+    }
+  }
+}
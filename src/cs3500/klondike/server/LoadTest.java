@@ -0,0 +1,267 @@
+package cs3500.klondike.server;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A load-test client for a {@link KlondikeServer}: opens many sessions at once from one
+ * thread, plays a number of random commands in each, one at a time, and reports the
+ * throughput and the latency of the responses.
+ *
+ * <p>Each session waits for the response to one command before sending the next, as a
+ * player would, and quits after its last command. A response is over when the session
+ * has seen its score line, or the "Play again." of a rejected move; the time from sending a
+ * command to that point is its latency. Commands are a random mix of discards and of
+ * moves to random piles, many of which the game rejects, as a player's would be.
+ */
+public final class LoadTest {
+  // sessions that get no response for this long are counted as failed
+  private static final long STALL_NANOS = TimeUnit.SECONDS.toNanos(30);
+  private static final byte[][] MARKERS = {
+      "\nScore: ".getBytes(StandardCharsets.US_ASCII),
+      "Play again.".getBytes(StandardCharsets.US_ASCII)
+  };
+
+  private final SocketAddress address;
+  private final int numSessions;
+  private final int numCommands;
+  private final int numPiles;
+  private final SplittableRandom random = new SplittableRandom(42);
+  private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(1 << 16);
+  private final long[] latencies;
+  private int numLatencies;
+  private int finished;
+  private int failed;
+
+  /**
+   * a load test, not yet run.
+   * @param address     the server's address
+   * @param numSessions the number of sessions to open at once
+   * @param numCommands the number of commands to play in each session
+   * @param numPiles    the number of piles of the server's games
+   */
+  public LoadTest(SocketAddress address, int numSessions, int numCommands, int numPiles) {
+    this.address = address;
+    this.numSessions = numSessions;
+    this.numCommands = numCommands;
+    this.numPiles = numPiles;
+    this.latencies = new long[numSessions * numCommands];
+  }
+
+  // one session's progress
+  private static final class Client {
+    private final SocketChannel channel;
+    private final int[] matched = new int[MARKERS.length];
+    private int commandsSent;
+    private long sentAt;
+    private boolean greeted;
+    private boolean quitting;
+    private ByteBuffer unsent;
+
+    private Client(SocketChannel channel) {
+      this.channel = channel;
+    }
+  }
+
+  /**
+   * run the test: play every session to its end.
+   * @return a report of the results
+   * @throws IOException if the selector fails
+   */
+  public String run() throws IOException {
+    long start = System.nanoTime();
+    try (Selector selector = Selector.open()) {
+      for (int i = 0; i < numSessions; i++) {
+        SocketChannel channel = null;
+        try {
+          channel = address instanceof UnixDomainSocketAddress
+                  ? SocketChannel.open(StandardProtocolFamily.UNIX)
+                  : SocketChannel.open();
+          channel.configureBlocking(false);
+          Client client = new Client(channel);
+          if (channel.connect(address)) {
+            channel.register(selector, SelectionKey.OP_READ, client);
+          } else {
+            channel.register(selector, SelectionKey.OP_CONNECT, client);
+          }
+        } catch (IOException e) {
+          failed++;
+          if (channel != null) {
+            channel.close();
+          }
+        }
+      }
+      long lastProgress = System.nanoTime();
+      while (finished + failed < numSessions) {
+        if (selector.select(1000) > 0) {
+          lastProgress = System.nanoTime();
+        } else if (System.nanoTime() - lastProgress > STALL_NANOS) {
+          failed = numSessions - finished;
+          break;
+        }
+        Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+        while (selected.hasNext()) {
+          SelectionKey key = selected.next();
+          selected.remove();
+          Client client = (Client) key.attachment();
+          try {
+            handle(key, client);
+          } catch (IOException e) {
+            failed++;
+            key.cancel();
+            client.channel.close();
+          }
+        }
+      }
+      for (SelectionKey key : selector.keys()) {
+        key.channel().close();
+      }
+    }
+    return report(System.nanoTime() - start);
+  }
+
+  private void handle(SelectionKey key, Client client) throws IOException {
+    if (key.isConnectable()) {
+      client.channel.finishConnect();
+      key.interestOps(SelectionKey.OP_READ);
+      return;
+    }
+    if (key.isWritable()) {
+      client.channel.write(client.unsent);
+      if (!client.unsent.hasRemaining()) {
+        client.unsent = null;
+        key.interestOps(SelectionKey.OP_READ);
+      }
+    }
+    if (!key.isReadable()) {
+      return;
+    }
+    readBuffer.clear();
+    int read = client.channel.read(readBuffer);
+    if (read < 0) {
+      key.cancel();
+      client.channel.close();
+      if (client.quitting) {
+        finished++;
+      } else {
+        failed++;
+      }
+      return;
+    }
+    readBuffer.flip();
+    int responses = countResponses(client, readBuffer);
+    for (int i = 0; i < responses && !client.quitting; i++) {
+      long now = System.nanoTime();
+      if (client.greeted) {
+        latencies[numLatencies++] = now - client.sentAt;
+      }
+      client.greeted = true;
+      sendNext(key, client, now);
+    }
+  }
+
+  // the number of responses that ended in the given bytes
+  private static int countResponses(Client client, ByteBuffer bytes) {
+    int count = 0;
+    while (bytes.hasRemaining()) {
+      byte b = bytes.get();
+      for (int m = 0; m < MARKERS.length; m++) {
+        byte[] marker = MARKERS[m];
+        if (b == marker[client.matched[m]]) {
+          if (++client.matched[m] == marker.length) {
+            count++;
+            client.matched[m] = 0;
+          }
+        } else {
+          client.matched[m] = b == marker[0] ? 1 : 0;
+        }
+      }
+    }
+    return count;
+  }
+
+  private void sendNext(SelectionKey key, Client client, long now) throws IOException {
+    String command;
+    if (client.commandsSent == numCommands) {
+      command = "q\n";
+      client.quitting = true;
+    } else {
+      command = randomCommand();
+      client.commandsSent++;
+    }
+    client.sentAt = now;
+    ByteBuffer bytes = ByteBuffer.wrap(command.getBytes(StandardCharsets.US_ASCII));
+    client.channel.write(bytes);
+    if (bytes.hasRemaining()) {
+      client.unsent = bytes;
+      key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+  }
+
+  private String randomCommand() {
+    int kind = random.nextInt(20);
+    if (kind < 10) {
+      return "dd\n";
+    } else if (kind < 14) {
+      return "mpf " + pile() + " " + (1 + random.nextInt(4)) + "\n";
+    } else if (kind < 17) {
+      return "md " + pile() + "\n";
+    } else if (kind < 19) {
+      return "mpp " + pile() + " 1 " + pile() + "\n";
+    }
+    return "mdf " + (1 + random.nextInt(4)) + "\n";
+  }
+
+  private int pile() {
+    return 1 + random.nextInt(numPiles);
+  }
+
+  private String report(long elapsedNanos) {
+    long[] sorted = Arrays.copyOf(latencies, numLatencies);
+    Arrays.sort(sorted);
+    double seconds = elapsedNanos / 1e9;
+    return String.format("sessions: %d finished, %d failed%n"
+                    + "commands: %d in %.2f s, %.0f per second%n"
+                    + "latency (us): p50 %.1f, p99 %.1f, p99.9 %.1f, max %.1f",
+            finished, failed, numLatencies, seconds, numLatencies / seconds,
+            percentile(sorted, 0.5), percentile(sorted, 0.99), percentile(sorted, 0.999),
+            percentile(sorted, 1.0));
+  }
+
+  private static double percentile(long[] sorted, double fraction) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1);
+    return sorted[Math.max(0, index)] / 1e3;
+  }
+
+  /**
+   * run a load test against a running server and print its report.
+   * @param args the server's port on the loopback address or Unix-domain socket path,
+   *             then optionally the number of sessions, commands per session and piles
+   * @throws IOException if the test cannot run
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      System.err.println("usage: LoadTest <port | socket-path> [sessions] [commands] [piles]");
+      System.exit(2);
+    }
+    int numSessions = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+    int numCommands = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+    int numPiles = args.length > 3 ? Integer.parseInt(args[3]) : 7;
+    System.out.println(new LoadTest(KlondikeServer.address(args[0]), numSessions, numCommands,
+            numPiles).run());
+  }
+}
@@ -0,0 +1,152 @@
+package cs3500.klondike.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+import cs3500.klondike.controller.CommandInterpreter;
+import cs3500.klondike.model.hw02.BasicKlondike;
+
+/**
+ * One client's game on a {@link KlondikeServer}: the connection, the game, the part of a
+ * command that has arrived so far, and the output the connection has not yet taken.
+ *
+ * <p>A session belongs to one {@link EventLoop} and is only ever touched by its thread.
+ * It holds no buffers of its own while it is idle: bytes are read into, and encoded out
+ * of, buffers shared by every session of the loop, and only output a slow client has not
+ * taken is kept in a buffer of the session's own until the client catches up.
+ */
+final class Session {
+  // longer tokens are cut short; no command or argument is anywhere near this long
+  private static final int MAX_TOKEN = 32;
+
+  final SocketChannel channel;
+  final SelectionKey key;
+  // the responses the interpreter has written and the loop has not yet encoded
+  final StringBuilder text = new StringBuilder(1024);
+  final CommandInterpreter game;
+
+  private final char[] token = new char[MAX_TOKEN];
+  private int length;
+
+  // encoded output the connection has not taken yet, ready to be put to, or null
+  private ByteBuffer unsent;
+  // the time of the last input, from System.nanoTime()
+  long lastActive;
+  // true once the session should close as soon as its output is sent
+  boolean closing;
+
+  /**
+   * a session that deals a new game on the given connection and writes its first board.
+   * @param channel  the client's connection, already registered
+   * @param key      the connection's key with the loop's selector
+   * @param numPiles the number of piles to deal
+   * @param numDraw  the number of draw cards
+   * @param now      the current time, from System.nanoTime()
+   */
+  Session(SocketChannel channel, SelectionKey key, int numPiles, int numDraw, long now) {
+    this.channel = channel;
+    this.key = key;
+    this.lastActive = now;
+    BasicKlondike model = new BasicKlondike();
+    model.startGame(model.getDeck(), true, numPiles, numDraw);
+    this.game = new CommandInterpreter(model, text, false);
+    try {
+      game.start();
+    } catch (IOException e) {
+      // a StringBuilder never fails to append
+      throw new IllegalStateException(e);
+    }
+    closing = game.isFinished();
+  }
+
+  /**
+   * play the commands in the bytes read from the client. A token cut off at the end of the
+   * bytes is kept until the rest of it arrives. Bytes after the end of the game are
+   * ignored.
+   * @param in the bytes read
+   */
+  void consume(ByteBuffer in) {
+    try {
+      while (in.hasRemaining() && !game.isFinished()) {
+        int c = in.get() & 0xFF;
+        if (c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f' || c == 0x0B) {
+          if (length > 0) {
+            game.accept(token, Math.min(length, MAX_TOKEN));
+            length = 0;
+          }
+        } else {
+          if (length < MAX_TOKEN) {
+            token[length] = (char) c;
+          }
+          length++;
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    closing |= game.isFinished();
+  }
+
+  /**
+   * the client has sent all it will: play the token cut off at the end, if any, and
+   * close once the output is sent.
+   */
+  void endOfInput() {
+    if (length > 0 && !game.isFinished()) {
+      try {
+        game.accept(token, Math.min(length, MAX_TOKEN));
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+      length = 0;
+    }
+    closing = true;
+  }
+
+  /**
+   * whether there is output the connection has not taken yet.
+   * @return true if some output is waiting to be written
+   */
+  boolean hasUnsent() {
+    return unsent != null;
+  }
+
+  /**
+   * keep the rest of the given bytes to write later, after any already kept.
+   * @param bytes the bytes, from their position to their limit
+   */
+  void keep(ByteBuffer bytes) {
+    if (unsent == null) {
+      unsent = ByteBuffer.allocate(Math.max(4096, bytes.remaining()));
+    } else if (unsent.remaining() < bytes.remaining()) {
+      ByteBuffer grown = ByteBuffer.allocate(Math.max(unsent.capacity() * 2,
+              unsent.position() + bytes.remaining()));
+      unsent.flip();
+      grown.put(unsent);
+      unsent = grown;
+    }
+    unsent.put(bytes);
+  }
+
+  /**
+   * write as much of the kept output as the connection takes, and let go of the buffer
+   * once all of it is sent.
+   * @return true if all the kept output has been sent
+   * @throws IOException if the connection fails
+   */
+  boolean writeUnsent() throws IOException {
+    if (unsent == null) {
+      return true;
+    }
+    unsent.flip();
+    channel.write(unsent);
+    if (unsent.hasRemaining()) {
+      unsent.compact();
+      return false;
+    }
+    unsent = null;
+    return true;
+  }
+}
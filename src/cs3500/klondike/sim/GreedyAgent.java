@@ -0,0 +1,61 @@
+package cs3500.klondike.sim;
+
+import cs3500.klondike.model.hw02.BasicKlondike;
+import cs3500.klondike.model.hw02.Moves;
+
+/**
+ * An agent that always plays the first move of the most useful kind: a move to a
+ * foundation, then a move that turns up a face-down card, then a draw card onto a
+ * cascade, and only then a discard. Moves between cascades that turn nothing up are
+ * never played, since they can go back and forth forever. The agent gives up once it has
+ * discarded every draw card in a row without finding another move.
+ */
+public class GreedyAgent implements KlondikeAgent {
+  // discards in a row since the last other move
+  private int discards;
+
+  @Override
+  public void newGame(BasicKlondike model, long seed) {
+    discards = 0;
+  }
+
+  @Override
+  public int chooseMove(BasicKlondike model, int[] moves, int numMoves) {
+    int best = -1;
+    int bestRank = Integer.MAX_VALUE;
+    for (int i = 0; i < numMoves; i++) {
+      int rank = rank(model, moves[i]);
+      if (rank < bestRank) {
+        best = i;
+        bestRank = rank;
+      }
+    }
+    if (best >= 0 && Moves.kind(moves[best]) == Moves.DISCARD) {
+      if (++discards > model.getDrawCards().size()) {
+        return -1;
+      }
+    } else {
+      discards = 0;
+    }
+    return best;
+  }
+
+  // lower is better; MAX_VALUE for moves never to play
+  private static int rank(BasicKlondike model, int move) {
+    switch (Moves.kind(move)) {
+      case Moves.PILE_TO_FOUNDATION:
+      case Moves.DRAW_TO_FOUNDATION:
+        return 0;
+      case Moves.PILE:
+        int src = Moves.source(move);
+        int below = model.getPileHeight(src) - Moves.count(move) - 1;
+        return below >= 0 && !model.isCardVisible(src, below) ? 1 : Integer.MAX_VALUE;
+      case Moves.DRAW:
+        return 2;
+      case Moves.DISCARD:
+        return 3;
+      default:
+        return Integer.MAX_VALUE;
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package cs3500.klondike.sim;
+
+import cs3500.klondike.model.hw02.BasicKlondike;
+
+/**
+ * A player that picks moves for a game, used to play games without a person at the
+ * keyboard. An agent plays one game at a time, on one thread; a {@link SimulationRunner}
+ * gives every worker its own agent.
+ */
+public interface KlondikeAgent {
+  /**
+   * a new game has been dealt, and is about to be played by this agent.
+   * @param model the started game
+   * @param seed  a seed for any random choices, so that a game can be played again
+   *              exactly
+   */
+  void newGame(BasicKlondike model, long seed);
+
+  /**
+   * pick the next move from the legal moves of the game.
+   * @param model    the game, which must not be changed by the agent
+   * @param moves    the legal moves, encoded with {@link cs3500.klondike.model.hw02.Moves}
+   * @param numMoves how many of the moves are in use, at least 1
+   * @return the index of the chosen move, or -1 to give up the game
+   */
+  int chooseMove(BasicKlondike model, int[] moves, int numMoves);
+}
@@ -0,0 +1,92 @@
+package cs3500.klondike.sim;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations in nanoseconds that many threads can add to without locks.
+ *
+ * <p>Buckets are log-linear: every power of two is split into 8 equal buckets, so any
+ * recorded value is known to within 12.5%. Threads count into a plain local array from
+ * {@link #newLocal()} and {@link #add} it to the shared counts once, at the end of a
+ * batch, so the shared array is barely contended.
+ */
+final class LatencyHistogram {
+  // sub-buckets per power of two, as a power of two
+  private static final int SUB_BITS = 3;
+  private static final int SUB = 1 << SUB_BITS;
+  private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  /**
+   * a local array to count into with {@link #record}.
+   * @return an empty local array
+   */
+  static long[] newLocal() {
+    return new long[BUCKETS];
+  }
+
+  /**
+   * count a value in a local array.
+   * @param local the local array
+   * @param nanos the value, negative values count as 0
+   */
+  static void record(long[] local, long nanos) {
+    local[bucket(Math.max(0, nanos))]++;
+  }
+
+  /**
+   * add the counts of a local array to the shared counts.
+   * @param local the local array
+   */
+  void add(long[] local) {
+    for (int i = 0; i < BUCKETS; i++) {
+      if (local[i] != 0) {
+        counts.addAndGet(i, local[i]);
+      }
+    }
+  }
+
+  /**
+   * the value below which the given fraction of the counted values lie.
+   * @param fraction from 0 to 1, e.g. 0.99 for the 99th percentile
+   * @return the upper bound of the bucket holding that value, or 0 if nothing was counted
+   */
+  long percentile(double fraction) {
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      total += counts.get(i);
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long target = Math.max(1, (long) Math.ceil(fraction * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= target) {
+        return upperBound(i);
+      }
+    }
+    return upperBound(BUCKETS - 1);
+  }
+
+  private static int bucket(long value) {
+    if (value < SUB) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB - 1);
+    return (exponent - SUB_BITS + 1) * SUB + sub;
+  }
+
+  private static long upperBound(int bucket) {
+    if (bucket < SUB) {
+      return bucket;
+    }
+    int exponent = bucket / SUB + SUB_BITS - 1;
+    long sub = bucket % SUB;
+    long width = 1L << (exponent - SUB_BITS);
+    return (1L << exponent) + (sub + 1) * width - 1;
+  }
+}
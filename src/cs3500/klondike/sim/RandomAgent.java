@@ -0,0 +1,22 @@
+package cs3500.klondike.sim;
+
+import java.util.SplittableRandom;
+
+import cs3500.klondike.model.hw02.BasicKlondike;
+
+/**
+ * An agent that plays a uniformly random legal move, as a baseline for other agents.
+ */
+public class RandomAgent implements KlondikeAgent {
+  private SplittableRandom random = new SplittableRandom();
+
+  @Override
+  public void newGame(BasicKlondike model, long seed) {
+    random = new SplittableRandom(seed);
+  }
+
+  @Override
+  public int chooseMove(BasicKlondike model, int[] moves, int numMoves) {
+    return random.nextInt(numMoves);
+  }
+}
@@ -0,0 +1,128 @@
+package cs3500.klondike.sim;
+
+/**
+ * The totals of a {@link SimulationRunner} batch: how many games were played and won,
+ * their scores, and how fast they were played.
+ */
+public final class SimulationReport {
+  private final long games;
+  private final long wins;
+  private final long totalScore;
+  private final long totalMoves;
+  private final long elapsedNanos;
+  private final long p50Nanos;
+  private final long p90Nanos;
+  private final long p99Nanos;
+  private final long maxNanos;
+
+  SimulationReport(long games, long wins, long totalScore, long totalMoves, long elapsedNanos,
+                   LatencyHistogram latencies) {
+    this.games = games;
+    this.wins = wins;
+    this.totalScore = totalScore;
+    this.totalMoves = totalMoves;
+    this.elapsedNanos = elapsedNanos;
+    this.p50Nanos = latencies.percentile(0.50);
+    this.p90Nanos = latencies.percentile(0.90);
+    this.p99Nanos = latencies.percentile(0.99);
+    this.maxNanos = latencies.percentile(1.0);
+  }
+
+  /**
+   * the number of games played.
+   * @return the game count
+   */
+  public long getGames() {
+    return games;
+  }
+
+  /**
+   * the number of games that ended with every card on the foundations.
+   * @return the win count
+   */
+  public long getWins() {
+    return wins;
+  }
+
+  /**
+   * the fraction of games won.
+   * @return the win rate, from 0 to 1
+   */
+  public double getWinRate() {
+    return games == 0 ? 0 : (double) wins / games;
+  }
+
+  /**
+   * the mean final score of a game.
+   * @return the mean score
+   */
+  public double getMeanScore() {
+    return games == 0 ? 0 : (double) totalScore / games;
+  }
+
+  /**
+   * the mean number of moves made in a game.
+   * @return the mean move count
+   */
+  public double getMeanMoves() {
+    return games == 0 ? 0 : (double) totalMoves / games;
+  }
+
+  /**
+   * the wall-clock time of the whole batch.
+   * @return the elapsed nanoseconds
+   */
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  /**
+   * the speed of the batch, over all threads.
+   * @return games per second
+   */
+  public double getGamesPerSecond() {
+    return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+  }
+
+  /**
+   * the time to deal and play one game that half of the games took at most.
+   * @return the median game time in nanoseconds, to within 12.5%
+   */
+  public long getP50Nanos() {
+    return p50Nanos;
+  }
+
+  /**
+   * the time to deal and play one game that 90% of the games took at most.
+   * @return the 90th percentile game time in nanoseconds, to within 12.5%
+   */
+  public long getP90Nanos() {
+    return p90Nanos;
+  }
+
+  /**
+   * the time to deal and play one game that 99% of the games took at most.
+   * @return the 99th percentile game time in nanoseconds, to within 12.5%
+   */
+  public long getP99Nanos() {
+    return p99Nanos;
+  }
+
+  /**
+   * the time of the slowest game.
+   * @return the longest game time in nanoseconds, to within 12.5%
+   */
+  public long getMaxNanos() {
+    return maxNanos;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d games in %.1f ms (%.0f games/s), win rate %.2f%%, "
+                    + "mean score %.2f, mean moves %.1f, latency p50 %.1f us, p90 %.1f us, "
+                    + "p99 %.1f us, max %.1f us",
+            games, elapsedNanos / 1e6, getGamesPerSecond(), getWinRate() * 100,
+            getMeanScore(), getMeanMoves(), p50Nanos / 1e3, p90Nanos / 1e3, p99Nanos / 1e3,
+            maxNanos / 1e3);
+  }
+}
@@ -0,0 +1,235 @@
+package cs3500.klondike.sim;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import cs3500.klondike.model.hw02.BasicKlondike;
+import cs3500.klondike.model.hw02.Card;
+import cs3500.klondike.model.hw02.DeckProfile;
+import cs3500.klondike.model.hw02.KlondikeCard;
+import cs3500.klondike.model.hw02.Rank;
+
+/**
+ * Plays batches of {@link BasicKlondike} games with a {@link KlondikeAgent}, spread over
+ * every thread of a fork/join pool.
+ *
+ * <p>Every game of a batch is dealt with its own deal number, derived from the batch seed
+ * and the game's number, so a batch deals the same games however its work is split between
+ * threads, and any one game can be dealt again with
+ * {@link BasicKlondike#startGame(List, long, int, int)}. Each worker plays a range of games
+ * with its own agent and move array, and adds its totals to the shared counters once, when
+ * its range is done.
+ *
+ * <p>A game ends when it is over, when the agent gives up or after a fixed number of
+ * moves, since an agent that only discards would never finish.
+ */
+public class SimulationRunner {
+  // golden-ratio step between the seeds of consecutive games
+  private static final long SEED_STEP = 0x9E3779B97F4A7C15L;
+  // games one worker plays before its range is split again
+  private static final int MAX_RANGE = 256;
+
+  private final ForkJoinPool pool;
+  private final List<Card> deck;
+  private final int numPiles;
+  private final int numDraw;
+  private final int numDecks;
+  private final int maxMoves;
+  private final int winningScore;
+
+  /**
+   * a runner for the standard deck on the common pool, with games of at most 1000 moves.
+   * @param numPiles the number of piles to deal
+   * @param numDraw  the number of draw cards
+   * @throws IllegalArgumentException if a game cannot be dealt with these sizes
+   */
+  public SimulationRunner(int numPiles, int numDraw) {
+    this(ForkJoinPool.commonPool(), standardDeck(), numPiles, numDraw, 1000);
+  }
+
+  /**
+   * a runner with the given pool, deck and game sizes.
+   * @param pool     the pool to play on
+   * @param deck     the cards to deal each game from, in any order; a deck with several
+   *                 copies of each card is played with that many decks
+   * @param numPiles the number of piles to deal
+   * @param numDraw  the number of draw cards
+   * @param maxMoves the most moves to make in one game
+   * @throws IllegalArgumentException if the pool is null, the move limit is not positive,
+   *                                  or a game cannot be dealt from the deck with these
+   *                                  sizes
+   */
+  public SimulationRunner(ForkJoinPool pool, List<Card> deck, int numPiles, int numDraw,
+                          int maxMoves) {
+    if (pool == null) {
+      throw new IllegalArgumentException("Pool cannot be null");
+    }
+    if (maxMoves <= 0) {
+      throw new IllegalArgumentException("Move limit must be positive");
+    }
+    if (deck == null) {
+      throw new IllegalArgumentException("Deck cannot be null");
+    }
+    // a deck of several copies of each card is played as that many decks
+    int numDecks = DeckProfile.of(deck).getNumDecks();
+    // deal once, to reject bad arguments here rather than on a worker thread
+    new BasicKlondike(numDecks).startGame(deck, false, numPiles, numDraw);
+
+    this.pool = pool;
+    this.deck = List.copyOf(deck);
+    this.numPiles = numPiles;
+    this.numDraw = numDraw;
+    this.numDecks = numDecks;
+    this.maxMoves = maxMoves;
+    int score = 0;
+    for (Card card : deck) {
+      score += card.getRankValue();
+    }
+    this.winningScore = score;
+  }
+
+  private static List<Card> standardDeck() {
+    List<Card> deck = new ArrayList<>();
+    for (KlondikeCard.Suits suit : KlondikeCard.Suits.values()) {
+      for (Rank rank : Rank.values()) {
+        deck.add(KlondikeCard.of(suit, rank));
+      }
+    }
+    return deck;
+  }
+
+  /**
+   * play a batch of games.
+   * @param agents makes the agent of each worker; called once per worker, on its thread
+   * @param games  the number of games to play
+   * @param seed   the seed of the batch
+   * @return the totals of the batch
+   * @throws IllegalArgumentException if the agent supplier is null or the number of games
+   *                                  is negative
+   * @throws IllegalStateException    if an agent chooses a move outside the legal moves
+   */
+  public SimulationReport run(Supplier<? extends KlondikeAgent> agents, int games, long seed) {
+    if (agents == null) {
+      throw new IllegalArgumentException("Agent supplier cannot be null");
+    }
+    if (games < 0) {
+      throw new IllegalArgumentException("Number of games cannot be negative");
+    }
+    Batch batch = new Batch(agents, seed);
+    long start = System.nanoTime();
+    if (games > 0) {
+      int range = Math.max(1, Math.min(MAX_RANGE, games / (pool.getParallelism() * 8)));
+      pool.invoke(new Range(batch, 0, games, range));
+    }
+    return new SimulationReport(batch.games.sum(), batch.wins.sum(), batch.score.sum(),
+            batch.moves.sum(), System.nanoTime() - start, batch.latencies);
+  }
+
+  // the SplitMix64 finalizer, so that nearby game numbers get unrelated seeds
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * What the workers of one batch share.
+   */
+  private static final class Batch {
+    private final Supplier<? extends KlondikeAgent> agents;
+    private final long seed;
+    private final LongAdder games = new LongAdder();
+    private final LongAdder wins = new LongAdder();
+    private final LongAdder score = new LongAdder();
+    private final LongAdder moves = new LongAdder();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    private Batch(Supplier<? extends KlondikeAgent> agents, long seed) {
+      this.agents = agents;
+      this.seed = seed;
+    }
+  }
+
+  /**
+   * The games from {@code from} up to {@code to}, split in halves until a range is small
+   * enough for one worker.
+   */
+  private final class Range extends RecursiveAction {
+    // tasks are never serialized; declared to keep the build free of warnings
+    private static final long serialVersionUID = 1L;
+
+    private final Batch batch;
+    private final int from;
+    private final int to;
+    private final int range;
+
+    private Range(Batch batch, int from, int to, int range) {
+      this.batch = batch;
+      this.from = from;
+      this.to = to;
+      this.range = range;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > range) {
+        int mid = (from + to) >>> 1;
+        invokeAll(new Range(batch, from, mid, range), new Range(batch, mid, to, range));
+        return;
+      }
+      KlondikeAgent agent = batch.agents.get();
+      int[] legal = new int[64];
+      long[] latencies = LatencyHistogram.newLocal();
+      long wins = 0;
+      long score = 0;
+      long moves = 0;
+
+      for (int game = from; game < to; game++) {
+        long start = System.nanoTime();
+        long dealNumber = mix(batch.seed + game * SEED_STEP);
+        BasicKlondike model = new BasicKlondike(numDecks);
+        model.startGame(deck, dealNumber, numPiles, numDraw);
+        agent.newGame(model, mix(dealNumber));
+
+        int made = 0;
+        while (made < maxMoves) {
+          int numLegal = model.countLegalMoves();
+          if (numLegal == 0) {
+            break;
+          }
+          if (numLegal > legal.length) {
+            legal = new int[Math.max(numLegal, legal.length * 2)];
+          }
+          numLegal = model.generateMoves(legal);
+          int choice = agent.chooseMove(model, legal, numLegal);
+          if (choice < 0) {
+            break;
+          }
+          if (choice >= numLegal) {
+            throw new IllegalStateException("Agent chose move " + choice + " of " + numLegal);
+          }
+          model.apply(legal[choice]);
+          made++;
+        }
+
+        int gameScore = model.getScore();
+        score += gameScore;
+        moves += made;
+        if (gameScore == winningScore) {
+          wins++;
+        }
+        LatencyHistogram.record(latencies, System.nanoTime() - start);
+      }
+
+      batch.games.add(to - from);
+      batch.wins.add(wins);
+      batch.score.add(score);
+      batch.moves.add(moves);
+      batch.latencies.add(latencies);
+    }
+  }
+}
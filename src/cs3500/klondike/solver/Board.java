@@ -0,0 +1,398 @@
+package cs3500.klondike.solver;
+
+import java.util.List;
+
+import cs3500.klondike.model.hw02.BasicKlondike;
+import cs3500.klondike.model.hw02.Card;
+import cs3500.klondike.model.hw02.Moves;
+import cs3500.klondike.model.hw02.PackedCard;
+
+/**
+ * The full state of a Klondike game (including face-down cards) packed into primitive
+ * arrays, with moves that can be made and taken back without allocating. The rules are
+ * the rules of {@link BasicKlondike}, so moves found here can be replayed on the model
+ * with {@link Moves#apply}. Moves are trusted: only moves produced by {@link #generate}
+ * may be made.
+ */
+final class Board {
+  final int numPiles;
+  final int numDraw;
+  final int deckSize;
+  final int maxRank;
+
+  // all cascade piles in one array; pile p uses the slots from p * deckSize
+  private final byte[] piles;
+  private final int[] heights;
+  private final int[] faceDown;
+
+  // a foundation pile is always a run from the Ace, so only its top card is stored
+  private final byte[] foundationTops;
+  private int foundationCards;
+
+  // the visible draw cards, as a ring of numDraw slots
+  private final byte[] window;
+  private int windowHead;
+  private int windowSize;
+
+  // the rest of the stock, drawn from restHead onward
+  private final byte[] rest;
+  private int restHead;
+
+  private Board(int numPiles, int numDraw, int deckSize, int maxRank, int numFoundations,
+                int restSize) {
+    this.numPiles = numPiles;
+    this.numDraw = numDraw;
+    this.deckSize = deckSize;
+    this.maxRank = maxRank;
+    this.piles = new byte[numPiles * deckSize];
+    this.heights = new int[numPiles];
+    this.faceDown = new int[numPiles];
+    this.foundationTops = new byte[numFoundations];
+    this.window = new byte[numDraw];
+    this.rest = new byte[restSize];
+  }
+
+  /**
+   * capture the current position of a started game.
+   * @param model the game
+   * @return a board in the same position
+   */
+  static Board of(BasicKlondike model) {
+    List<Card> stock = model.getStockCards();
+    Board board = new Board(model.getNumPiles(), model.getNumDraw(),
+            model.getDeckProfile().getDeckSize(), model.getDeckProfile().getMaxRank(),
+            model.getNumFoundations(), stock.size());
+    for (int p = 0; p < board.numPiles; p++) {
+      int height = model.getPileHeight(p);
+      board.heights[p] = height;
+      board.faceDown[p] = height;
+      for (int row = height - 1; row >= 0 && model.isCardVisible(p, row); row--) {
+        board.faceDown[p] = row;
+      }
+      for (int row = 0; row < height; row++) {
+        board.piles[p * board.deckSize + row] = PackedCard.pack(model.peekCardAt(p, row));
+      }
+    }
+    for (int f = 0; f < board.foundationTops.length; f++) {
+      Card top = model.getCardAt(f);
+      if (top != null) {
+        board.foundationTops[f] = PackedCard.pack(top);
+        board.foundationCards += top.getRankValue();
+      }
+    }
+    List<Card> draw = model.getDrawCards();
+    for (int i = 0; i < draw.size(); i++) {
+      board.window[i] = PackedCard.pack(draw.get(i));
+    }
+    board.windowSize = draw.size();
+    for (int i = 0; i < stock.size(); i++) {
+      board.rest[i] = PackedCard.pack(stock.get(i));
+    }
+    return board;
+  }
+
+  /**
+   * an independent board in the same position.
+   * @return the copy
+   */
+  Board copy() {
+    Board copy = new Board(numPiles, numDraw, deckSize, maxRank, foundationTops.length,
+            rest.length);
+    System.arraycopy(piles, 0, copy.piles, 0, piles.length);
+    System.arraycopy(heights, 0, copy.heights, 0, numPiles);
+    System.arraycopy(faceDown, 0, copy.faceDown, 0, numPiles);
+    System.arraycopy(foundationTops, 0, copy.foundationTops, 0, foundationTops.length);
+    System.arraycopy(window, 0, copy.window, 0, numDraw);
+    System.arraycopy(rest, 0, copy.rest, 0, rest.length);
+    copy.foundationCards = foundationCards;
+    copy.windowHead = windowHead;
+    copy.windowSize = windowSize;
+    copy.restHead = restHead;
+    return copy;
+  }
+
+  /**
+   * check if every card is on the foundations.
+   * @return true if the game is won
+   */
+  boolean isWon() {
+    return foundationCards == deckSize;
+  }
+
+  /**
+   * the number of visible draw cards.
+   * @return the draw window size
+   */
+  int windowSize() {
+    return windowSize;
+  }
+
+  /**
+   * the most moves {@link #generate} can ever write for this board.
+   * @return the move array size to use
+   */
+  int maxMoves() {
+    return numPiles * numPiles * maxRank + 2 * numPiles + foundationTops.length + 2;
+  }
+
+  /**
+   * a 64-bit key of the position. Face-down cards are covered by the face-down counts,
+   * since face-down cards never move, and the stock by how far it has been drawn.
+   * Foundation piles are summed without their index, so positions that only differ by
+   * which foundation holds which suit share a key.
+   * @return the position key
+   */
+  long hash() {
+    long hash = 0;
+    for (int p = 0; p < numPiles; p++) {
+      int base = p * deckSize;
+      hash += mix(0x100000L | (long) p << 32 | faceDown[p]);
+      for (int row = faceDown[p]; row < heights[p]; row++) {
+        hash += mix(0x200000L | (long) p << 40 | (long) row << 32 | (piles[base + row] & 0xFF));
+      }
+    }
+    for (byte top : foundationTops) {
+      hash += mix(0x300000L | (top & 0xFF));
+    }
+    for (int i = 0; i < windowSize; i++) {
+      hash += mix(0x400000L | (long) i << 32 | (window[(windowHead + i) % numDraw] & 0xFF));
+    }
+    return hash + mix(0x500000L | restHead);
+  }
+
+  // the SplitMix64 finalizer
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * write the legal moves worth searching, most promising first: moves to the
+   * foundations, then cascade moves that turn up a face-down card or empty a pile, then
+   * draw moves, then the other cascade moves, and the discard last. Moves that only lead
+   * to a mirror image of another move's position (a different empty pile or an equal
+   * foundation) are left out, as is a discard that changes nothing.
+   * @param moves          the array to fill, of at least {@link #maxMoves()} slots
+   * @param allowDiscard   whether to include the discard
+   * @return the number of moves written
+   */
+  int generate(int[] moves, boolean allowDiscard) {
+    int count = 0;
+    for (int src = 0; src < numPiles; src++) {
+      if (heights[src] > 0) {
+        int f = foundationFor(piles[src * deckSize + heights[src] - 1]);
+        if (f >= 0) {
+          moves[count++] = Moves.moveToFoundation(src, f);
+        }
+      }
+    }
+    byte drawCard = windowSize > 0 ? window[windowHead] : PackedCard.NONE;
+    if (drawCard != PackedCard.NONE) {
+      int f = foundationFor(drawCard);
+      if (f >= 0) {
+        moves[count++] = Moves.moveDrawToFoundation(f);
+      }
+    }
+    // runs led by the lowest face-up card turn up a card or empty their pile
+    for (int src = 0; src < numPiles; src++) {
+      if (heights[src] > 0) {
+        count = addRunMoves(moves, count, src, faceDown[src]);
+      }
+    }
+    if (drawCard != PackedCard.NONE) {
+      boolean emptyTried = false;
+      for (int dest = 0; dest < numPiles; dest++) {
+        if (heights[dest] == 0) {
+          if (!emptyTried && PackedCard.rank(drawCard) == maxRank) {
+            moves[count++] = Moves.moveDraw(dest);
+          }
+          emptyTried = true;
+        } else if (fitsOn(drawCard, piles[dest * deckSize + heights[dest] - 1])) {
+          moves[count++] = Moves.moveDraw(dest);
+        }
+      }
+    }
+    for (int src = 0; src < numPiles; src++) {
+      for (int row = faceDown[src] + 1; row < heights[src]; row++) {
+        count = addRunMoves(moves, count, src, row);
+      }
+    }
+    if (allowDiscard && windowSize > 1) {
+      moves[count++] = Moves.discardDraw();
+    }
+    return count;
+  }
+
+  private int addRunMoves(int[] moves, int count, int src, int row) {
+    byte card = piles[src * deckSize + row];
+    int numCards = heights[src] - row;
+    boolean emptyTried = false;
+    for (int dest = 0; dest < numPiles; dest++) {
+      if (dest == src) {
+        continue;
+      }
+      if (heights[dest] == 0) {
+        // moving a whole pile to an empty pile only swaps two piles
+        if (!emptyTried && row > 0 && PackedCard.rank(card) == maxRank) {
+          moves[count++] = Moves.movePile(src, numCards, dest);
+        }
+        emptyTried = true;
+      } else if (fitsOn(card, piles[dest * deckSize + heights[dest] - 1])) {
+        moves[count++] = Moves.movePile(src, numCards, dest);
+      }
+    }
+    return count;
+  }
+
+  private boolean fitsOn(byte card, byte top) {
+    return PackedCard.rank(card) + 1 == PackedCard.rank(top)
+            && PackedCard.isRed(card) != PackedCard.isRed(top);
+  }
+
+  // the first foundation pile the card can go to, or -1
+  private int foundationFor(byte card) {
+    int rank = PackedCard.rank(card);
+    byte wanted = rank == 1 ? PackedCard.NONE : PackedCard.pack(PackedCard.suit(card), rank - 1);
+    for (int f = 0; f < foundationTops.length; f++) {
+      if (foundationTops[f] == wanted) {
+        return f;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * make a move produced by {@link #generate}.
+   * @param move the encoded move
+   * @return what {@link #unmake} needs to take the move back
+   */
+  int make(int move) {
+    switch (Moves.kind(move)) {
+      case Moves.PILE: {
+        int src = Moves.source(move);
+        int dest = Moves.destination(move);
+        int numCards = Moves.count(move);
+        System.arraycopy(piles, src * deckSize + heights[src] - numCards,
+                piles, dest * deckSize + heights[dest], numCards);
+        heights[src] -= numCards;
+        heights[dest] += numCards;
+        return reveal(src);
+      }
+      case Moves.PILE_TO_FOUNDATION: {
+        int src = Moves.source(move);
+        foundationTops[Moves.destination(move)] = piles[src * deckSize + --heights[src]];
+        foundationCards++;
+        return reveal(src);
+      }
+      case Moves.DRAW: {
+        int dest = Moves.destination(move);
+        piles[dest * deckSize + heights[dest]++] = window[windowHead];
+        return takeDrawCard();
+      }
+      case Moves.DRAW_TO_FOUNDATION: {
+        foundationTops[Moves.destination(move)] = window[windowHead];
+        foundationCards++;
+        return takeDrawCard();
+      }
+      default:
+        window[(windowHead + windowSize) % numDraw] = window[windowHead];
+        windowHead = (windowHead + 1) % numDraw;
+        return 0;
+    }
+  }
+
+  /**
+   * take back the last move made.
+   * @param move the encoded move
+   * @param undo what {@link #make} returned for it
+   */
+  void unmake(int move, int undo) {
+    switch (Moves.kind(move)) {
+      case Moves.PILE: {
+        int src = Moves.source(move);
+        int dest = Moves.destination(move);
+        int numCards = Moves.count(move);
+        if (undo != 0) {
+          faceDown[src] = heights[src];
+        }
+        heights[dest] -= numCards;
+        System.arraycopy(piles, dest * deckSize + heights[dest],
+                piles, src * deckSize + heights[src], numCards);
+        heights[src] += numCards;
+        break;
+      }
+      case Moves.PILE_TO_FOUNDATION: {
+        int src = Moves.source(move);
+        int f = Moves.destination(move);
+        if (undo != 0) {
+          faceDown[src] = heights[src];
+        }
+        byte card = foundationTops[f];
+        piles[src * deckSize + heights[src]++] = card;
+        foundationTops[f] = belowOnFoundation(card);
+        foundationCards--;
+        break;
+      }
+      case Moves.DRAW: {
+        int dest = Moves.destination(move);
+        returnDrawCard(piles[dest * deckSize + --heights[dest]], undo);
+        break;
+      }
+      case Moves.DRAW_TO_FOUNDATION: {
+        int f = Moves.destination(move);
+        byte card = foundationTops[f];
+        foundationTops[f] = belowOnFoundation(card);
+        foundationCards--;
+        returnDrawCard(card, undo);
+        break;
+      }
+      default:
+        windowHead = (windowHead + numDraw - 1) % numDraw;
+        window[windowHead] = window[(windowHead + windowSize) % numDraw];
+        break;
+    }
+  }
+
+  private static byte belowOnFoundation(byte card) {
+    int rank = PackedCard.rank(card);
+    return rank == 1 ? PackedCard.NONE : PackedCard.pack(PackedCard.suit(card), rank - 1);
+  }
+
+  // turn up the top card of the pile if needed; returns 1 if a card was turned up
+  private int reveal(int pile) {
+    if (heights[pile] > 0 && faceDown[pile] >= heights[pile]) {
+      faceDown[pile] = heights[pile] - 1;
+      return 1;
+    }
+    return 0;
+  }
+
+  // removes the top draw card, refilling from the stock if that empties the draw cards;
+  // returns the card's slot and the number of refilled cards
+  private int takeDrawCard() {
+    int slot = windowHead;
+    windowHead = (windowHead + 1) % numDraw;
+    windowSize--;
+    int refilled = 0;
+    if (windowSize == 0 && restHead < rest.length) {
+      refilled = Math.min(numDraw, rest.length - restHead);
+      System.arraycopy(rest, restHead, window, 0, refilled);
+      restHead += refilled;
+      windowHead = 0;
+      windowSize = refilled;
+    }
+    return slot << 8 | refilled;
+  }
+
+  private void returnDrawCard(byte card, int undo) {
+    int refilled = undo & 0xFF;
+    if (refilled > 0) {
+      restHead -= refilled;
+      windowSize = 0;
+    }
+    windowHead = undo >>> 8;
+    window[windowHead] = card;
+    windowSize++;
+  }
+}
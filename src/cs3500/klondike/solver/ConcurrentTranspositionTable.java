@@ -0,0 +1,60 @@
+package cs3500.klondike.solver;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded table of position keys like {@link TranspositionTable}, that many searches
+ * can share at once. Slots are claimed with compare-and-set instead of locks, so two
+ * threads only ever contend on a single slot. When two threads add the same key at the
+ * same time, exactly one of them sees it as new.
+ */
+final class ConcurrentTranspositionTable implements PositionTable {
+  private static final int BUCKET = 4;
+
+  private final AtomicLongArray keys;
+  private final int mask;
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * make an empty table of {@code 2^bits} keys.
+   * @param bits the log2 of the number of keys, from 4 to 30
+   */
+  ConcurrentTranspositionTable(int bits) {
+    if (bits < 4 || bits > 30) {
+      throw new IllegalArgumentException("Table bits must be between 4 and 30");
+    }
+    this.keys = new AtomicLongArray(1 << bits);
+    this.mask = keys.length() - 1;
+  }
+
+  @Override
+  public boolean add(long key) {
+    // 0 marks an empty slot
+    if (key == 0) {
+      key = 1;
+    }
+    int start = (int) (key ^ (key >>> 32)) & mask & ~(BUCKET - 1);
+    for (int i = start; i < start + BUCKET; i++) {
+      long slot = keys.get(i);
+      if (slot == 0) {
+        if (keys.compareAndSet(i, 0, key)) {
+          return true;
+        }
+        // another thread claimed the slot first; it may have claimed it for this key
+        slot = keys.get(i);
+      }
+      if (slot == key) {
+        return false;
+      }
+    }
+    keys.set(start + (int) (key >>> 62), key);
+    evictions.increment();
+    return true;
+  }
+
+  @Override
+  public long evictions() {
+    return evictions.sum();
+  }
+}
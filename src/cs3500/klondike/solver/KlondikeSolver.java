@@ -0,0 +1,69 @@
+package cs3500.klondike.solver;
+
+import cs3500.klondike.model.hw02.BasicKlondike;
+
+/**
+ * Searches a started {@link BasicKlondike} game for a winning sequence of moves.
+ *
+ * <p>The search is depth-first over a packed copy of the game, making and taking back
+ * moves in place. Moves are tried most promising first (foundation moves, then moves that
+ * turn up a face-down card, then draw moves). Every position entered is remembered in a
+ * bounded transposition table, so no position is searched twice while it is remembered,
+ * and runs of discards stop before the draw cards come back around. When the search runs
+ * out of positions without a win, the game is proven unsolvable; when it runs out of
+ * nodes or time first, the answer is unknown.
+ *
+ * <p>A solver can be reused for many games, and by several threads at once; every solve
+ * gets its own table.
+ */
+public class KlondikeSolver {
+  private final long maxNodes;
+  private final long maxNanos;
+  private final int tableBits;
+
+  /**
+   * a solver with a budget of ten million nodes or ten seconds, and a table of about a
+   * million positions.
+   */
+  public KlondikeSolver() {
+    this(10_000_000L, 10_000L, 20);
+  }
+
+  /**
+   * a solver with the given budget.
+   * @param maxNodes  the most positions to enter per search
+   * @param maxMillis the most time to spend per search
+   * @param tableBits the log2 of the number of positions to remember, from 4 to 30
+   * @throws IllegalArgumentException if a budget is not positive or the table size is out
+   *                                  of range
+   */
+  public KlondikeSolver(long maxNodes, long maxMillis, int tableBits) {
+    if (maxNodes <= 0 || maxMillis <= 0) {
+      throw new IllegalArgumentException("Search budget must be positive");
+    }
+    if (tableBits < 4 || tableBits > 30) {
+      throw new IllegalArgumentException("Table bits must be between 4 and 30");
+    }
+    this.maxNodes = maxNodes;
+    this.maxNanos = maxMillis * 1_000_000L;
+    this.tableBits = tableBits;
+  }
+
+  /**
+   * search the current position of the game. The game itself is not changed.
+   * @param model a started game
+   * @return the outcome; a solution's moves can be made on the game with
+   *         {@link BasicKlondike#apply(int)}
+   * @throws IllegalStateException if the game hasn't been started yet
+   */
+  public SolverResult solve(BasicKlondike model) {
+    long start = System.nanoTime();
+    Board board = Board.of(model);
+    TranspositionTable table = new TranspositionTable(tableBits);
+    SearchBudget budget = new SearchBudget(maxNodes, maxNanos);
+    Search search = new Search(board, table, budget, 0);
+    SolverResult.Status status = search.run();
+    return new SolverResult(status, search.path(), budget.nodes(), System.nanoTime() - start,
+            table.evictions());
+  }
+}
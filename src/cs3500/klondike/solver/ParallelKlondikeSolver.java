@@ -0,0 +1,192 @@
+package cs3500.klondike.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+import cs3500.klondike.model.hw02.BasicKlondike;
+import cs3500.klondike.model.hw02.Moves;
+
+/**
+ * Searches a started {@link BasicKlondike} game for a winning sequence of moves on many
+ * threads at once.
+ *
+ * <p>The first few levels of the game tree are split into fork/join tasks, one per move,
+ * each with its own copy of the board; below the split depth, each task runs the same
+ * depth-first search as {@link KlondikeSolver}. Idle threads of the pool steal the tasks
+ * that are still waiting. All searches share one transposition table, so a position
+ * entered by one thread is not searched again by another, and one node and time budget.
+ * As soon as any search wins, every other search stops and waiting tasks are cancelled.
+ *
+ * <p>A game is only reported unsolvable when every search ran to its end: each position
+ * in the table was then searched to the end by the thread that entered it, so together
+ * they cover every position reachable from the start.
+ */
+public class ParallelKlondikeSolver {
+  private final ForkJoinPool pool;
+  private final long maxNodes;
+  private final long maxNanos;
+  private final int tableBits;
+  private final int splitDepth;
+
+  /**
+   * a solver on the common pool, with a budget of a hundred million nodes or a minute, a
+   * table of about sixteen million positions and tasks split over the first four moves.
+   */
+  public ParallelKlondikeSolver() {
+    this(ForkJoinPool.commonPool(), 100_000_000L, 60_000L, 24, 4);
+  }
+
+  /**
+   * a solver with the given pool and budget.
+   * @param pool       the pool to run the searches on
+   * @param maxNodes   the most positions to enter per solve, over all threads
+   * @param maxMillis  the most time to spend per solve
+   * @param tableBits  the log2 of the number of positions to remember, from 4 to 30
+   * @param splitDepth how many moves deep to split the search into tasks, at least 1
+   * @throws IllegalArgumentException if the pool is null, a budget is not positive, the
+   *                                  table size is out of range or the split depth is
+   *                                  less than 1
+   */
+  public ParallelKlondikeSolver(ForkJoinPool pool, long maxNodes, long maxMillis,
+                                int tableBits, int splitDepth) {
+    if (pool == null) {
+      throw new IllegalArgumentException("Pool cannot be null");
+    }
+    if (maxNodes <= 0 || maxMillis <= 0) {
+      throw new IllegalArgumentException("Search budget must be positive");
+    }
+    if (tableBits < 4 || tableBits > 30) {
+      throw new IllegalArgumentException("Table bits must be between 4 and 30");
+    }
+    if (splitDepth < 1) {
+      throw new IllegalArgumentException("Split depth must be at least 1");
+    }
+    this.pool = pool;
+    this.maxNodes = maxNodes;
+    this.maxNanos = maxMillis * 1_000_000L;
+    this.tableBits = tableBits;
+    this.splitDepth = splitDepth;
+  }
+
+  /**
+   * search the current position of the game. The game itself is not changed.
+   * @param model a started game
+   * @return the outcome; a solution's moves can be made on the game with
+   *         {@link BasicKlondike#apply(int)}
+   * @throws IllegalStateException if the game hasn't been started yet
+   */
+  public SolverResult solve(BasicKlondike model) {
+    long start = System.nanoTime();
+    Solve solve = new Solve(new ConcurrentTranspositionTable(tableBits),
+            new SearchBudget(maxNodes, maxNanos));
+    pool.invoke(new Split(solve, Board.of(model), new int[0], 0));
+
+    int[] moves = solve.solution.get();
+    SolverResult.Status status;
+    if (moves != null) {
+      status = SolverResult.Status.SOLVED;
+    } else if (solve.budget.ranOut()) {
+      status = SolverResult.Status.UNKNOWN;
+    } else {
+      status = SolverResult.Status.UNSOLVABLE;
+    }
+    if (moves == null) {
+      moves = new int[0];
+    }
+    return new SolverResult(status, moves, solve.budget.nodes(), System.nanoTime() - start,
+            solve.table.evictions());
+  }
+
+  /**
+   * What the tasks of one solve share.
+   */
+  private static final class Solve {
+    private final PositionTable table;
+    private final SearchBudget budget;
+    private final AtomicReference<int[]> solution = new AtomicReference<>();
+
+    private Solve(PositionTable table, SearchBudget budget) {
+      this.table = table;
+      this.budget = budget;
+    }
+
+    // keep the first solution found, and stop every other search
+    private void won(int[] prefix, int[] rest) {
+      int[] moves = Arrays.copyOf(prefix, prefix.length + rest.length);
+      System.arraycopy(rest, 0, moves, prefix.length, rest.length);
+      solution.compareAndSet(null, moves);
+      budget.stop();
+    }
+  }
+
+  /**
+   * The search of one position, reached from the start by the given moves: split into one
+   * task per move above the split depth, searched in place below it.
+   */
+  private final class Split extends RecursiveAction {
+    // tasks are never serialized; declared to keep the build free of warnings
+    private static final long serialVersionUID = 1L;
+
+    private final Solve solve;
+    private final Board board;
+    private final int[] prefix;
+    private final int discards;
+
+    private Split(Solve solve, Board board, int[] prefix, int discards) {
+      this.solve = solve;
+      this.board = board;
+      this.prefix = prefix;
+      this.discards = discards;
+    }
+
+    @Override
+    protected void compute() {
+      if (solve.budget.isStopped()) {
+        return;
+      }
+      if (prefix.length >= splitDepth) {
+        Search search = new Search(board, solve.table, solve.budget, discards);
+        if (search.run() == SolverResult.Status.SOLVED) {
+          solve.won(prefix, search.path());
+        }
+        return;
+      }
+      if (board.isWon()) {
+        solve.won(prefix, new int[0]);
+        return;
+      }
+      // positions above the split depth are left out of the table, so that the search
+      // below can enter them; the few repeated ones cost little
+      int[] moves = new int[board.maxMoves()];
+      int count = board.generate(moves, discards < board.windowSize() - 1);
+      if (count == 0) {
+        return;
+      }
+      List<Split> tasks = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        Board child = board.copy();
+        child.make(moves[i]);
+        int[] path = Arrays.copyOf(prefix, prefix.length + 1);
+        path[prefix.length] = moves[i];
+        tasks.add(new Split(solve, child, path,
+                Moves.kind(moves[i]) == Moves.DISCARD ? discards + 1 : 0));
+      }
+      // the most promising move runs here, the rest wait to be stolen
+      for (int i = tasks.size() - 1; i > 0; i--) {
+        tasks.get(i).fork();
+      }
+      tasks.get(0).compute();
+      for (int i = 1; i < tasks.size(); i++) {
+        Split task = tasks.get(i);
+        // a task that has not started yet need not run at all once the solve has stopped
+        if (!solve.budget.isStopped() || !task.cancel(false)) {
+          task.quietlyJoin();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package cs3500.klondike.solver;
+
+/**
+ * A set of position keys a search has already entered. Implementations may forget keys
+ * to stay within a fixed size; forgetting a key only costs the search repeated work.
+ */
+interface PositionTable {
+  /**
+   * add the key, unless it is already in the table.
+   * @param key the position key
+   * @return true if the key was added, false if it was already there
+   */
+  boolean add(long key);
+
+  /**
+   * the number of keys that replaced another key.
+   * @return the number of evictions
+   */
+  long evictions();
+}
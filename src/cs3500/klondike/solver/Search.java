@@ -0,0 +1,138 @@
+package cs3500.klondike.solver;
+
+import java.util.Arrays;
+
+import cs3500.klondike.model.hw02.Moves;
+
+/**
+ * One depth-first search from the current position of a board, with its own move stack.
+ * The board is changed while searching and left in the winning position when the search
+ * wins, or back in the starting position otherwise.
+ */
+final class Search {
+  // nodes entered between two charges to the shared budget
+  private static final int CHARGE_EVERY = 256;
+
+  private final Board board;
+  private final PositionTable table;
+  private final SearchBudget budget;
+
+  // per depth: the generated moves, how many there are, which is next, the undo record of
+  // the move made, and how many discards in a row led here
+  private int[][] moves = new int[64][];
+  private int[] counts = new int[64];
+  private int[] next = new int[64];
+  private int[] undo = new int[64];
+  private int[] discards = new int[64];
+  private int length;
+  private int uncharged;
+
+  /**
+   * a search from the board's current position.
+   * @param board        the board to search, which the search changes
+   * @param table        the positions already entered, possibly shared with other searches
+   * @param budget       the budget, possibly shared with other searches
+   * @param discardsSoFar how many discards in a row led to the current position
+   */
+  Search(Board board, PositionTable table, SearchBudget budget, int discardsSoFar) {
+    this.board = board;
+    this.table = table;
+    this.budget = budget;
+    this.discards[0] = discardsSoFar;
+  }
+
+  /**
+   * search until a win is found, every position is exhausted or the budget stops it.
+   * @return {@code SOLVED}, {@code UNSOLVABLE} when every position reachable from the
+   *         start was entered by this or another search sharing the table, or
+   *         {@code UNKNOWN} when stopped
+   */
+  SolverResult.Status run() {
+    if (board.isWon()) {
+      return SolverResult.Status.SOLVED;
+    }
+    if (!enter(0)) {
+      return finish(SolverResult.Status.UNSOLVABLE);
+    }
+    int depth = 0;
+    while (true) {
+      if (next[depth] == counts[depth]) {
+        // every move from here failed
+        if (depth == 0) {
+          return finish(SolverResult.Status.UNSOLVABLE);
+        }
+        depth--;
+        board.unmake(moves[depth][next[depth] - 1], undo[depth]);
+        continue;
+      }
+      int move = moves[depth][next[depth]++];
+      undo[depth] = board.make(move);
+      if (board.isWon()) {
+        length = depth + 1;
+        return finish(SolverResult.Status.SOLVED);
+      }
+      if (++uncharged == CHARGE_EVERY || budget.isStopped()) {
+        int entered = uncharged;
+        uncharged = 0;
+        if (!budget.charge(entered)) {
+          // leave the board where it started
+          for (int d = depth; d >= 0; d--) {
+            board.unmake(moves[d][next[d] - 1], undo[d]);
+          }
+          return SolverResult.Status.UNKNOWN;
+        }
+      }
+      grow(depth + 1);
+      discards[depth + 1] = Moves.kind(move) == Moves.DISCARD ? discards[depth] + 1 : 0;
+      if (enter(depth + 1)) {
+        depth++;
+      } else {
+        board.unmake(move, undo[depth]);
+      }
+    }
+  }
+
+  private SolverResult.Status finish(SolverResult.Status status) {
+    budget.charge(uncharged);
+    uncharged = 0;
+    return status;
+  }
+
+  /**
+   * the winning moves found by the last {@link #run()}, from the starting position.
+   * @return the moves, empty unless the search won
+   */
+  int[] path() {
+    int[] path = new int[length];
+    for (int i = 0; i < length; i++) {
+      path[i] = moves[i][next[i] - 1];
+    }
+    return path;
+  }
+
+  // visit the position at the given depth; false if it was already visited
+  private boolean enter(int depth) {
+    if (!table.add(board.hash())) {
+      return false;
+    }
+    if (moves[depth] == null) {
+      moves[depth] = new int[board.maxMoves()];
+    }
+    // after windowSize - 1 discards in a row, the next would show a rotation already seen
+    counts[depth] = board.generate(moves[depth], discards[depth] < board.windowSize() - 1);
+    next[depth] = 0;
+    return true;
+  }
+
+  private void grow(int depth) {
+    if (depth < counts.length) {
+      return;
+    }
+    int size = counts.length * 2;
+    moves = Arrays.copyOf(moves, size);
+    counts = Arrays.copyOf(counts, size);
+    next = Arrays.copyOf(next, size);
+    undo = Arrays.copyOf(undo, size);
+    discards = Arrays.copyOf(discards, size);
+  }
+}
@@ -0,0 +1,70 @@
+package cs3500.klondike.solver;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The node and time budget of one solve, shared by every search taking part in it. A
+ * search charges the nodes it enters in small batches, and stops as soon as the budget
+ * runs out or another search has stopped the solve.
+ */
+final class SearchBudget {
+  private final long maxNodes;
+  private final long deadline;
+  private final AtomicLong nodes = new AtomicLong();
+  private volatile boolean stopped;
+  private volatile boolean ranOut;
+
+  /**
+   * a budget starting now.
+   * @param maxNodes the most nodes to enter
+   * @param maxNanos the most time to take
+   */
+  SearchBudget(long maxNodes, long maxNanos) {
+    this.maxNodes = maxNodes;
+    this.deadline = System.nanoTime() + maxNanos;
+  }
+
+  /**
+   * add entered nodes to the total, and check the budget.
+   * @param entered the nodes entered since the last charge
+   * @return true if the search may go on
+   */
+  boolean charge(long entered) {
+    if (nodes.addAndGet(entered) >= maxNodes || System.nanoTime() > deadline) {
+      ranOut = true;
+      stopped = true;
+    }
+    return !stopped;
+  }
+
+  /**
+   * stop every search of this solve, e.g. because one of them has won.
+   */
+  void stop() {
+    stopped = true;
+  }
+
+  /**
+   * check if the solve has been stopped.
+   * @return true once the budget ran out or {@link #stop()} was called
+   */
+  boolean isStopped() {
+    return stopped;
+  }
+
+  /**
+   * check if the budget ran out.
+   * @return true if the node or time budget was used up
+   */
+  boolean ranOut() {
+    return ranOut;
+  }
+
+  /**
+   * the nodes charged so far.
+   * @return the node count
+   */
+  long nodes() {
+    return nodes.get();
+  }
+}
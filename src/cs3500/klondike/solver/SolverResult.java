@@ -0,0 +1,100 @@
+package cs3500.klondike.solver;
+
+import java.util.Arrays;
+
+import cs3500.klondike.model.hw02.Moves;
+
+/**
+ * The outcome of a {@link KlondikeSolver} search: whether the position was solved, proven
+ * unsolvable or left open when the budget ran out, the winning moves if any, and how much
+ * work the search did.
+ */
+public final class SolverResult {
+  /**
+   * enum type to represent how a search ended.
+   */
+  public enum Status {
+    /** a winning sequence of moves was found. */
+    SOLVED,
+    /** every reachable position was searched and none is won. */
+    UNSOLVABLE,
+    /** the node or time budget ran out first. */
+    UNKNOWN
+  }
+
+  private final Status status;
+  private final int[] moves;
+  private final long nodes;
+  private final long elapsedNanos;
+  private final long evictions;
+
+  SolverResult(Status status, int[] moves, long nodes, long elapsedNanos, long evictions) {
+    this.status = status;
+    this.moves = moves;
+    this.nodes = nodes;
+    this.elapsedNanos = elapsedNanos;
+    this.evictions = evictions;
+  }
+
+  /**
+   * how the search ended.
+   * @return the status
+   */
+  public Status getStatus() {
+    return status;
+  }
+
+  /**
+   * the winning moves, encoded with {@link Moves}, in the order to make them from the
+   * searched position. Empty unless the status is {@link Status#SOLVED}.
+   * @return a copy of the moves
+   */
+  public int[] getMoves() {
+    return moves.clone();
+  }
+
+  /**
+   * the number of positions the search entered.
+   * @return the node count
+   */
+  public long getNodes() {
+    return nodes;
+  }
+
+  /**
+   * the wall-clock time of the search.
+   * @return the elapsed nanoseconds
+   */
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  /**
+   * the search speed.
+   * @return nodes per second
+   */
+  public double getNodesPerSecond() {
+    return elapsedNanos == 0 ? 0 : nodes * 1e9 / elapsedNanos;
+  }
+
+  /**
+   * the number of positions the transposition table had to forget to make room.
+   * @return the eviction count
+   */
+  public long getTableEvictions() {
+    return evictions;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append(status).append(" after ").append(nodes).append(" nodes (")
+            .append(Math.round(getNodesPerSecond())).append(" nodes/s)");
+    if (status == Status.SOLVED) {
+      sb.append(" in ").append(moves.length).append(" moves: ");
+      sb.append(Arrays.stream(moves).mapToObj(Moves::toString)
+              .reduce((a, b) -> a + ", " + b).orElse(""));
+    }
+    return sb.toString();
+  }
+}
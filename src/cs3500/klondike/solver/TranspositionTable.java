@@ -0,0 +1,61 @@
+package cs3500.klondike.solver;
+
+/**
+ * A fixed-size set of position keys the search has already entered. Each key lives in a
+ * small bucket of slots; when a bucket is full, the new key replaces one of its keys, so
+ * the table never grows. Forgetting a key only costs the search repeated work, never a
+ * wrong answer.
+ */
+final class TranspositionTable implements PositionTable {
+  private static final int BUCKET = 4;
+
+  private final long[] keys;
+  private final int mask;
+  private long evictions;
+
+  /**
+   * make an empty table of {@code 2^bits} keys.
+   * @param bits the log2 of the number of keys, from 4 to 30
+   */
+  TranspositionTable(int bits) {
+    if (bits < 4 || bits > 30) {
+      throw new IllegalArgumentException("Table bits must be between 4 and 30");
+    }
+    this.keys = new long[1 << bits];
+    this.mask = keys.length - 1;
+  }
+
+  @Override
+  public boolean add(long key) {
+    // 0 marks an empty slot
+    if (key == 0) {
+      key = 1;
+    }
+    int start = (int) (key ^ (key >>> 32)) & mask & ~(BUCKET - 1);
+    for (int i = start; i < start + BUCKET; i++) {
+      if (keys[i] == key) {
+        return false;
+      }
+      if (keys[i] == 0) {
+        keys[i] = key;
+        return true;
+      }
+    }
+    keys[start + (int) (key >>> 62)] = key;
+    evictions++;
+    return true;
+  }
+
+  @Override
+  public long evictions() {
+    return evictions;
+  }
+
+  /**
+   * the number of keys the table can hold.
+   * @return the capacity
+   */
+  int capacity() {
+    return keys.length;
+  }
+}
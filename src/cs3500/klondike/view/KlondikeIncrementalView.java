@@ -0,0 +1,228 @@
+package cs3500.klondike.view;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import cs3500.klondike.model.hw02.BasicKlondike;
+import cs3500.klondike.model.hw02.Card;
+
+/**
+ * A text rendering of a {@link BasicKlondike} game, with the same text as
+ * {@link KlondikeTextualView}, that keeps the rendered lines between renders and only
+ * redraws the parts of the board that changed.
+ *
+ * <p>The model stamps every pile with the version of its last change. Each render compares
+ * those stamps with the version it last saw, rebuilds the draw line, the foundation line
+ * and the columns of the cascade piles that changed, and leaves the rest of its buffer as
+ * it was. Lines are reused from render to render, so a render to a reused destination
+ * allocates nothing once the board has reached its tallest.
+ *
+ * <p>{@link #renderDelta()} writes only the lines that changed since the last render of
+ * either kind, in this form:
+ * <pre>
+ *   the number of lines of the board now
+ *   for each changed line: its 0-based index, a space, and its text
+ * </pre>
+ * each followed by a newline. Line 0 is the draw line, line 1 the foundation line and the
+ * cascade rows follow; lines past the new count no longer exist.
+ */
+public class KlondikeIncrementalView implements TextView {
+  private static final String FACE_DOWN = "  ?";
+  private static final String EMPTY_PILE = "  X";
+  private static final String BLANK = "   ";
+
+  private final BasicKlondike model;
+  private final Appendable out;
+
+  private final StringBuilder drawLine = new StringBuilder();
+  private final StringBuilder foundationLine = new StringBuilder();
+  // the cascade rows, of which the first numRows are in use
+  private StringBuilder[] rows = new StringBuilder[0];
+  private int numRows;
+  private int[] heights;
+  // per line, whether it changed since the last render
+  private boolean[] dirty = new boolean[2];
+  // the model version the lines were last brought up to, or -1 before the first render
+  private long seenVersion = -1;
+
+  /**
+   * a view of the given game that renders to the given destination.
+   * @param model the game
+   * @param out   where to write the game
+   * @throws IllegalArgumentException if either argument is null
+   */
+  public KlondikeIncrementalView(BasicKlondike model, Appendable out) {
+    if (model == null || out == null) {
+      throw new IllegalArgumentException("Model and output cannot be null");
+    }
+    this.model = model;
+    this.out = out;
+  }
+
+  /**
+   * write the whole game to the destination, as {@link KlondikeTextualView} renders it.
+   * @throws IOException           if the destination fails to append
+   * @throws IllegalStateException if the game hasn't been started yet
+   */
+  @Override
+  public void render() throws IOException {
+    update();
+    out.append(drawLine).append('\n').append(foundationLine).append('\n');
+    for (int row = 0; row < numRows; row++) {
+      out.append(rows[row]);
+      if (row < numRows - 1) {
+        out.append('\n');
+      }
+    }
+    Arrays.fill(dirty, false);
+  }
+
+  /**
+   * write the lines that changed since the last render, in the form described above. The
+   * first render of either kind counts every line as changed.
+   * @throws IOException           if the destination fails to append
+   * @throws IllegalStateException if the game hasn't been started yet
+   */
+  public void renderDelta() throws IOException {
+    update();
+    int numLines = 2 + numRows;
+    out.append(Integer.toString(numLines)).append('\n');
+    for (int line = 0; line < numLines; line++) {
+      if (dirty[line]) {
+        out.append(Integer.toString(line)).append(' ').append(line(line)).append('\n');
+        dirty[line] = false;
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    update();
+    StringBuilder sb = new StringBuilder(drawLine).append('\n').append(foundationLine)
+            .append('\n');
+    for (int row = 0; row < numRows; row++) {
+      sb.append(rows[row]);
+      if (row < numRows - 1) {
+        sb.append('\n');
+      }
+    }
+    return sb.toString();
+  }
+
+  private CharSequence line(int line) {
+    if (line == 0) {
+      return drawLine;
+    }
+    return line == 1 ? foundationLine : rows[line - 2];
+  }
+
+  // bring the lines up to the model's current version, marking the lines that change
+  private void update() {
+    long version = model.getVersion();
+    if (version == seenVersion) {
+      return;
+    }
+    boolean everything = seenVersion < 0;
+    int numPiles = model.getNumPiles();
+    if (everything) {
+      heights = new int[numPiles];
+    }
+
+    if (everything || model.getDrawVersion() > seenVersion) {
+      drawLine.setLength(0);
+      drawLine.append("Draw:");
+      List<Card> drawCards = model.getDrawCards();
+      for (int i = 0; i < drawCards.size(); i++) {
+        drawLine.append(' ').append(drawCards.get(i).toString());
+      }
+      dirty[0] = true;
+    }
+
+    int numFoundations = model.getNumFoundations();
+    boolean foundationsChanged = everything;
+    for (int i = 0; i < numFoundations && !foundationsChanged; i++) {
+      foundationsChanged = model.getFoundationVersion(i) > seenVersion;
+    }
+    if (foundationsChanged) {
+      foundationLine.setLength(0);
+      foundationLine.append("Foundation:");
+      for (int i = 0; i < numFoundations; i++) {
+        Card card = model.getCardAt(i);
+        foundationLine.append(' ').append(card == null ? "<none>" : card.toString());
+        if (i < numFoundations - 1) {
+          foundationLine.append(',');
+        }
+      }
+      dirty[1] = true;
+    }
+
+    // the new height of the table, and which piles need their column redrawn
+    int oldRows = numRows;
+    int newRows = 0;
+    for (int pileNum = 0; pileNum < numPiles; pileNum++) {
+      if (everything || model.getPileVersion(pileNum) > seenVersion) {
+        newRows = Math.max(newRows, model.getPileHeight(pileNum));
+      } else {
+        newRows = Math.max(newRows, heights[pileNum]);
+      }
+    }
+    resizeRows(numPiles, oldRows, newRows);
+
+    for (int pileNum = 0; pileNum < numPiles; pileNum++) {
+      if (everything || model.getPileVersion(pileNum) > seenVersion) {
+        int oldHeight = heights[pileNum];
+        heights[pileNum] = model.getPileHeight(pileNum);
+        int redraw = Math.min(newRows, Math.max(Math.max(oldHeight, heights[pileNum]), 1));
+        for (int row = 0; row < redraw; row++) {
+          setCell(row, pileNum, cell(pileNum, row));
+        }
+      }
+    }
+    seenVersion = version;
+  }
+
+  // add blank rows or drop rows so that there are newRows, marking the lines that appear
+  private void resizeRows(int numPiles, int oldRows, int newRows) {
+    if (rows.length < newRows) {
+      rows = Arrays.copyOf(rows, Math.max(newRows, rows.length * 2));
+      dirty = Arrays.copyOf(dirty, 2 + rows.length);
+    }
+    for (int row = oldRows; row < newRows; row++) {
+      if (rows[row] == null) {
+        rows[row] = new StringBuilder(3 * numPiles);
+      }
+      StringBuilder line = rows[row];
+      line.setLength(0);
+      for (int pileNum = 0; pileNum < numPiles; pileNum++) {
+        // piles that did not change are no taller than the old rows
+        line.append(row == 0 && heights[pileNum] == 0 ? EMPTY_PILE : BLANK);
+      }
+      dirty[2 + row] = true;
+    }
+    for (int row = newRows; row < oldRows; row++) {
+      dirty[2 + row] = false;
+    }
+    numRows = newRows;
+  }
+
+  // the text of a cascade cell, from the model
+  private String cell(int pileNum, int row) {
+    if (row < heights[pileNum]) {
+      Card card = model.getCardAt(pileNum, row);
+      return card == null ? FACE_DOWN : KlondikeTextualView.cell(card);
+    }
+    return row == 0 && heights[pileNum] == 0 ? EMPTY_PILE : BLANK;
+  }
+
+  private void setCell(int row, int pileNum, String cell) {
+    StringBuilder line = rows[row];
+    int at = 3 * pileNum;
+    for (int i = 0; i < 3; i++) {
+      if (line.charAt(at + i) != cell.charAt(i)) {
+        line.setCharAt(at + i, cell.charAt(i));
+        dirty[2 + row] = true;
+      }
+    }
+  }
+}
@@ -1,85 +1,147 @@
 package cs3500.klondike.view;
 
+import java.io.IOException;
+import java.util.List;
+
 import cs3500.klondike.model.hw02.Card;
+import cs3500.klondike.model.hw02.KlondikeCard;
 import cs3500.klondike.model.hw02.KlondikeModel;
+import cs3500.klondike.model.hw02.PackedCard;
+import cs3500.klondike.model.hw02.Rank;
 
 /**
  * A simple text-based rendering of the Klondike game.
+ *
+ * <p>The game is written straight to an {@link Appendable}, one piece at a time, without
+ * building a string of the whole board first. Every card's three-character cell is made
+ * once for all views, so rendering a game to a reused buffer allocates nothing.
  */
 public class KlondikeTextualView implements TextView {
+  // each card right-aligned in a cell three characters wide, indexed by its packed value
+  private static final String[] CELLS = buildCells();
+  private static final String FACE_DOWN = "  ?";
+  private static final String EMPTY_PILE = "  X";
+  private static final String BLANK = "   ";
+
   protected KlondikeModel model;
+  private final Appendable out;
+  // the pile heights of the game being rendered, reused between renders
+  private int[] heights = new int[0];
 
   /**
-   * KlondikeTextualView constructor.
+   * KlondikeTextualView constructor, rendering to standard output.
    * @param model the KlondikeModel model
    */
   public KlondikeTextualView(KlondikeModel model) {
+    this(model, System.out);
+  }
+
+  /**
+   * KlondikeTextualView constructor, rendering to the given destination.
+   * @param model the KlondikeModel model
+   * @param out   where {@link #render()} writes the game
+   * @throws IllegalArgumentException if the destination is null
+   */
+  public KlondikeTextualView(KlondikeModel model, Appendable out) {
+    if (out == null) {
+      throw new IllegalArgumentException("Output cannot be null");
+    }
     this.model = model;
+    this.out = out;
+  }
+
+  private static String[] buildCells() {
+    String[] cells = new String[64];
+    for (KlondikeCard.Suits suit : KlondikeCard.Suits.values()) {
+      for (Rank rank : Rank.values()) {
+        Card card = KlondikeCard.of(suit, rank);
+        cells[PackedCard.pack(card)] = String.format("%3s", card);
+      }
+    }
+    return cells;
+  }
+
+  // the card right-aligned in a cell three characters wide
+  static String cell(Card card) {
+    return CELLS[PackedCard.pack(card)];
   }
 
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder();
+    try {
+      render(sb);
+    } catch (IOException e) {
+      // a StringBuilder never fails to append
+      throw new IllegalStateException(e);
+    }
+    return sb.toString();
+  }
 
+  /**
+   * write the game to this view's destination, as {@link #toString()} renders it.
+   * @throws IOException if the destination fails to append
+   */
+  @Override
+  public void render() throws IOException {
+    render(out);
+  }
+
+  /**
+   * write the game to the given destination, as {@link #toString()} renders it: the draw
+   * cards, the foundation piles, then the cascade piles row by row, with no newline after
+   * the last row.
+   * @param out where to write the game
+   * @throws IOException if the destination fails to append
+   */
+  public void render(Appendable out) throws IOException {
     // Draw Cards
-    sb.append("Draw:");
-    for (Card card : model.getDrawCards()) {
-      sb.append(" ").append(card);
+    out.append("Draw:");
+    List<Card> drawCards = model.getDrawCards();
+    for (int i = 0; i < drawCards.size(); i++) {
+      out.append(' ').append(drawCards.get(i).toString());
     }
-    sb.append("\n");
+    out.append('\n');
 
     // Foundation Piles
-    sb.append("Foundation:");
-    for (int i = 0; i < model.getNumFoundations(); i++) {
-      try {
-        Card card = model.getCardAt(i);  // Try to get the top card
-        if (card != null) {
-          sb.append(" ").append(card);
-        } else {
-          sb.append(" <none>");
-        }
-      } catch (IllegalArgumentException e) {
-        sb.append(" <none>");
-      }
-      if (i < model.getNumFoundations() - 1) {
-        sb.append(",");
+    out.append("Foundation:");
+    int numFoundations = model.getNumFoundations();
+    for (int i = 0; i < numFoundations; i++) {
+      Card card = model.getCardAt(i);  // the top card, if any
+      out.append(' ').append(card == null ? "<none>" : card.toString());
+      if (i < numFoundations - 1) {
+        out.append(',');
       }
     }
-    sb.append("\n");
+    out.append('\n');
 
     // Cascade Piles
     int numPiles = model.getNumPiles();
-    int maxPileHeight = model.getNumRows();
+    if (heights.length < numPiles) {
+      heights = new int[numPiles];
+    }
+    int maxPileHeight = 0;
+    for (int pileNum = 0; pileNum < numPiles; pileNum++) {
+      heights[pileNum] = model.getPileHeight(pileNum);
+      maxPileHeight = Math.max(maxPileHeight, heights[pileNum]);
+    }
 
     for (int row = 0; row < maxPileHeight; row++) {
       for (int pileNum = 0; pileNum < numPiles; pileNum++) {
-        if (row < model.getPileHeight(pileNum)) {
+        if (row < heights[pileNum]) {
           Card card = model.getCardAt(pileNum, row);
-          if (card == null) {
-            sb.append("  ?");
-          } else if (card.isVisible()) {
-            sb.append(String.format("%3s", card));
-          } else {
-            sb.append("  ?");
-          }
+          // face-down cards are hidden by the model
+          out.append(card == null ? FACE_DOWN : cell(card));
+        } else if (row == 0 && heights[pileNum] == 0) {
+          out.append(EMPTY_PILE);
         } else {
-          if (row == 0 && model.getPileHeight(pileNum) == 0) {
-            sb.append("  X");
-          } else {
-            sb.append("   "); // Three spaces for alignment with the card's representation.
-          }
+          out.append(BLANK); // Three spaces for alignment with the card's representation.
         }
       }
       // Only append a newline if this isn't the last row
       if (row < maxPileHeight - 1) {
-        sb.append("\n");
+        out.append('\n');
       }
     }
-
-    return sb.toString();
   }
-
-
-
-
 }